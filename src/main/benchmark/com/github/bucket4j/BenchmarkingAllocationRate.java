@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j;
+
+import com.github.bucket4j.state.LocalExhaustedBucketState;
+import com.github.bucket4j.state.LocalNanotimePrecisionState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures allocation rate of local bucket, look at normalized "gc.churn" values(B/op) in the output of GC profiler.
+ * Rejected attempts are expected to allocate 0 B/op, successful ones allocate exactly one new state per commit.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BenchmarkingAllocationRate {
+
+    @Benchmark
+    public boolean rejectedTryConsume(LocalExhaustedBucketState state) {
+        return state.bucket.tryConsumeSingleToken();
+    }
+
+    @Benchmark
+    public long rejectedConsumeAsMuchAsPossible(LocalExhaustedBucketState state) {
+        return state.bucket.consumeAsMuchAsPossible();
+    }
+
+    @Benchmark
+    public boolean acceptedTryConsume(LocalNanotimePrecisionState state) {
+        return state.bucket.tryConsumeSingleToken();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(BenchmarkingAllocationRate.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .threads(1)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j;
+
+import com.github.bucket4j.state.HazelcastHotKeyState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures throughput of many threads which consume from the same bucket inside embedded two-member Hazelcast cluster,
+ * bucket which merges concurrent calls is compared with bucket which makes remote call per consumption.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BenchmarkingCoalescingGridProxy {
+
+    @Benchmark
+    public boolean benchmarkGrid(HazelcastHotKeyState state) {
+        return state.gridBucket.tryConsumeSingleToken();
+    }
+
+    @Benchmark
+    public boolean benchmarkCoalescing(HazelcastHotKeyState state) {
+        return state.coalescingBucket.tryConsumeSingleToken();
+    }
+
+    public static class FourThreads {
+
+        public static void main(String[] args) throws RunnerException {
+            benchmark(4);
+        }
+
+    }
+
+    public static class SixtyFourThreads {
+
+        public static void main(String[] args) throws RunnerException {
+            benchmark(64);
+        }
+
+    }
+
+    public static class TwoHundredThreads {
+
+        public static void main(String[] args) throws RunnerException {
+            benchmark(200);
+        }
+
+    }
+
+    private static void benchmark(int threadCount) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(BenchmarkingCoalescingGridProxy.class.getSimpleName())
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .threads(threadCount)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+}
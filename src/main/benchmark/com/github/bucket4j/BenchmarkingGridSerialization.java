@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j;
+
+import com.github.bucket4j.state.GridSerializationState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time of serialization round trip of grid types by java serialization and by Hazelcast,
+ * serialized sizes are printed during setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BenchmarkingGridSerialization {
+
+    @Benchmark
+    public Object javaSerializationOfGridBucketState(GridSerializationState state) throws Exception {
+        return GridSerializationState.javaDeserialize(GridSerializationState.javaSerialize(state.gridBucketState));
+    }
+
+    @Benchmark
+    public Object hazelcastSerializationOfGridBucketState(GridSerializationState state) {
+        return state.hazelcastSerializationService.toObject(state.hazelcastSerializationService.toData(state.gridBucketState));
+    }
+
+    @Benchmark
+    public Object javaSerializationOfCommand(GridSerializationState state) throws Exception {
+        return GridSerializationState.javaDeserialize(GridSerializationState.javaSerialize(state.hazelcastCommand));
+    }
+
+    @Benchmark
+    public Object hazelcastSerializationOfCommand(GridSerializationState state) {
+        return state.hazelcastSerializationService.toObject(state.hazelcastSerializationService.toData(state.hazelcastCommand));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(BenchmarkingGridSerialization.class.getSimpleName())
+                .warmupIterations(10)
+                .measurementIterations(10)
+                .threads(1)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j;
+
+import com.github.bucket4j.state.HazelcastClusterState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time of consumption from batch of random keys inside embedded multi-member Hazelcast cluster,
+ * table which submits all keys at once is compared with sequential {@code executeOnKey} per key.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BenchmarkingHazelcastBulk {
+
+    @Benchmark
+    public int benchmarkPerKey(HazelcastClusterState state) {
+        int consumed = 0;
+        for (int key : state.randomKeys()) {
+            if (state.buckets[key].tryConsumeSingleToken()) {
+                consumed++;
+            }
+        }
+        return consumed;
+    }
+
+    @Benchmark
+    public Map<Integer, Boolean> benchmarkTable(HazelcastClusterState state) {
+        return state.table.tryConsume(state.randomBatch());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(BenchmarkingHazelcastBulk.class.getSimpleName())
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .threads(1)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j;
+
+import com.github.bucket4j.state.HazelcastInMemoryFormatState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares consumption from maps with BINARY and OBJECT in-memory formats inside embedded 3-member Hazelcast cluster,
+ * for keys owned by the calling member, which are processed without network and serialization of the command,
+ * and for keys owned by another member.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BenchmarkingHazelcastInMemoryFormat {
+
+    @Benchmark
+    public boolean benchmarkBinaryLocalOwner(HazelcastInMemoryFormatState state) {
+        return state.binaryLocalOwnerBucket.tryConsumeSingleToken();
+    }
+
+    @Benchmark
+    public boolean benchmarkBinaryRemoteOwner(HazelcastInMemoryFormatState state) {
+        return state.binaryRemoteOwnerBucket.tryConsumeSingleToken();
+    }
+
+    @Benchmark
+    public boolean benchmarkObjectLocalOwner(HazelcastInMemoryFormatState state) {
+        return state.objectLocalOwnerBucket.tryConsumeSingleToken();
+    }
+
+    @Benchmark
+    public boolean benchmarkObjectRemoteOwner(HazelcastInMemoryFormatState state) {
+        return state.objectRemoteOwnerBucket.tryConsumeSingleToken();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(BenchmarkingHazelcastInMemoryFormat.class.getSimpleName())
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .threads(4)
+                .forks(1)
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+}
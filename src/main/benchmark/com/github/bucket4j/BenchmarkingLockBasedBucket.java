@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j;
+
+import com.github.bucket4j.state.LocalLockBasedState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares lock-free and lock based local buckets in order to find the crossover point by count of threads and count of bandwidths.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BenchmarkingLockBasedBucket {
+
+    @Benchmark
+    public boolean benchmarkLockFreeBucket(LocalLockBasedState state) {
+        return state.lockFreeBucket.tryConsumeSingleToken();
+    }
+
+    @Benchmark
+    public boolean benchmarkLockBasedBucket(LocalLockBasedState state) {
+        return state.lockBasedBucket.tryConsumeSingleToken();
+    }
+
+    @Benchmark
+    public boolean benchmarkSpinningLockBasedBucket(LocalLockBasedState state) {
+        return state.spinningLockBasedBucket.tryConsumeSingleToken();
+    }
+
+    public static class OneThread {
+
+        public static void main(String[] args) throws RunnerException {
+            benchmark(1);
+        }
+
+    }
+
+    public static class TwoThreads {
+
+        public static void main(String[] args) throws RunnerException {
+            benchmark(2);
+        }
+
+    }
+
+    public static class FourThreads {
+
+        public static void main(String[] args) throws RunnerException {
+            benchmark(4);
+        }
+
+    }
+
+    public static class EightThreads {
+
+        public static void main(String[] args) throws RunnerException {
+            benchmark(8);
+        }
+
+    }
+
+    public static class SixteenThreads {
+
+        public static void main(String[] args) throws RunnerException {
+            benchmark(16);
+        }
+
+    }
+
+    private static void benchmark(int threadCount) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(BenchmarkingLockBasedBucket.class.getSimpleName())
+                .warmupIterations(10)
+                .measurementIterations(10)
+                .threads(threadCount)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+}
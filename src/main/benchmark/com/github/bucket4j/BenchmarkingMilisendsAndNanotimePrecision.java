@@ -16,6 +16,7 @@
 
 package com.github.bucket4j;
 
+import com.github.bucket4j.state.LocalCachedTimePrecisionState;
 import com.github.bucket4j.state.LocalMillisecondPrecisionState;
 import com.github.bucket4j.state.LocalNanotimePrecisionState;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -43,6 +44,26 @@ public class BenchmarkingMilisendsAndNanotimePrecision {
         return state.bucket.tryConsumeSingleToken();
     }
 
+    @Benchmark
+    public boolean benchmarkCachedTimePrecision(LocalCachedTimePrecisionState state) {
+        return state.bucket.tryConsumeSingleToken();
+    }
+
+    @Benchmark
+    public long benchmarkNanotimeReading() {
+        return TimeMeter.SYSTEM_NANOTIME.currentTime();
+    }
+
+    @Benchmark
+    public long benchmarkMillisecondsReading() {
+        return TimeMeter.SYSTEM_MILLISECONDS.currentTime();
+    }
+
+    @Benchmark
+    public long benchmarkCachedTimeReading(LocalCachedTimePrecisionState state) {
+        return state.bucket.getConfiguration().getTimeMeter().currentTime();
+    }
+
     public static void main(String[] args) throws RunnerException {
         Options opt = new OptionsBuilder()
                 .include(BenchmarkingMilisendsAndNanotimePrecision.class.getSimpleName())
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.state;
+
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.TryConsumeCommand;
+import com.github.bucket4j.grid.hazelcast.HazelcastCommand;
+import com.hazelcast.nio.serialization.SerializationService;
+import com.hazelcast.nio.serialization.SerializationServiceBuilder;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+public class GridSerializationState {
+
+    public GridBucketState gridBucketState;
+
+    public HazelcastCommand<Boolean> hazelcastCommand;
+
+    public SerializationService hazelcastSerializationService;
+
+    @Setup
+    public void setUp() throws Exception {
+        BucketConfiguration configuration = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(100, TimeUnit.MINUTES, 1)
+                .withLimitedBandwidth(10, TimeUnit.SECONDS, 1)
+                .createConfiguration();
+        gridBucketState = GridBucketState.createInitialState(configuration);
+        hazelcastCommand = new HazelcastCommand<>(new TryConsumeCommand(1));
+        hazelcastSerializationService = new SerializationServiceBuilder().build();
+
+        System.out.println();
+        System.out.println("Serialized size of GridBucketState: java=" + javaSerialize(gridBucketState).length
+                + ", hazelcast=" + hazelcastSerializationService.toData(gridBucketState).bufferSize());
+        System.out.println("Serialized size of HazelcastCommand: java=" + javaSerialize(hazelcastCommand).length
+                + ", hazelcast=" + hazelcastSerializationService.toData(hazelcastCommand).bufferSize());
+    }
+
+    public static byte[] javaSerialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static Object javaDeserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+}
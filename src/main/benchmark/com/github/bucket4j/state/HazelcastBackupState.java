@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.state;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketBuilder;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.grid.GridBucketState;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+public class HazelcastBackupState {
+
+    @Param({"1", "3"})
+    public int bandwidthCount;
+
+    public Bucket snapshotBackupBucket;
+
+    public Bucket replayBackupBucket;
+
+    @Setup
+    public void setUp() {
+        Config config = new Config();
+        config.setProperty("hazelcast.logging.type", "none");
+        HazelcastInstance member = Hazelcast.newHazelcastInstance(config);
+        Hazelcast.newHazelcastInstance(config);
+        IMap<Object, GridBucketState> imap = member.getMap("buckets");
+
+        snapshotBackupBucket = builder().buildHazelcast(imap, "snapshot");
+        replayBackupBucket = builder().withBackupByCommandReplay().buildHazelcast(imap, "replay");
+    }
+
+    private BucketBuilder builder() {
+        BucketBuilder builder = Buckets.withNanoTimePrecision();
+        long capacity = Long.MAX_VALUE / 8;
+        for (int i = 0; i < bandwidthCount; i++) {
+            builder.withLimitedBandwidth(capacity, TimeUnit.DAYS, 1 << i);
+            capacity *= 2;
+        }
+        return builder;
+    }
+
+    @TearDown
+    public void tearDown() {
+        Hazelcast.shutdownAll();
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.state;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketBuilder;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.GridBucketTable;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+public class HazelcastClusterState {
+
+    @Param({"3"})
+    public int memberCount;
+
+    @Param({"10000"})
+    public int keyCount;
+
+    @Param({"10", "100", "1000"})
+    public int batchSize;
+
+    public Bucket[] buckets;
+
+    public GridBucketTable<Integer> table;
+
+    @Setup
+    public void setUp() {
+        Config config = new Config();
+        config.setProperty("hazelcast.logging.type", "none");
+        HazelcastInstance[] members = new HazelcastInstance[memberCount];
+        for (int i = 0; i < memberCount; i++) {
+            members[i] = Hazelcast.newHazelcastInstance(config);
+        }
+        IMap<Object, GridBucketState> imap = members[0].getMap("buckets");
+
+        BucketBuilder builder = Buckets.withNanoTimePrecision().withLimitedBandwidth(Long.MAX_VALUE / 2, TimeUnit.DAYS, 1);
+        table = builder.buildHazelcastTable(imap);
+        buckets = new Bucket[keyCount];
+        for (int key = 0; key < keyCount; key++) {
+            buckets[key] = builder.buildHazelcast(imap, key);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Hazelcast.shutdownAll();
+    }
+
+    public int[] randomKeys() {
+        int[] keys = new int[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            keys[i] = ThreadLocalRandom.current().nextInt(keyCount);
+        }
+        return keys;
+    }
+
+    public Map<Integer, Long> randomBatch() {
+        Map<Integer, Long> batch = new HashMap<>();
+        for (int i = 0; i < batchSize; i++) {
+            batch.put(ThreadLocalRandom.current().nextInt(keyCount), 1L);
+        }
+        return batch;
+    }
+
+}
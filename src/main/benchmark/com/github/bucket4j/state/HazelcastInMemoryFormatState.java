@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.state;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketBuilder;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.grid.GridConfigurationRegistry;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded 3-member cluster with BINARY and OBJECT maps, each map holds one bucket which key is owned by the calling member
+ * and one bucket which key is owned by another member.
+ */
+@State(Scope.Benchmark)
+public class HazelcastInMemoryFormatState {
+
+    private static final String CONFIGURATION_ID = "benchmark";
+
+    public Bucket binaryLocalOwnerBucket;
+    public Bucket binaryRemoteOwnerBucket;
+    public Bucket objectLocalOwnerBucket;
+    public Bucket objectRemoteOwnerBucket;
+
+    @Setup
+    public void setUp() {
+        Config config = new Config();
+        config.setProperty("hazelcast.logging.type", "none");
+        config.addMapConfig(new MapConfig("binary").setInMemoryFormat(InMemoryFormat.BINARY));
+        config.addMapConfig(new MapConfig("object").setInMemoryFormat(InMemoryFormat.OBJECT));
+        HazelcastInstance member = Hazelcast.newHazelcastInstance(config);
+        Hazelcast.newHazelcastInstance(config);
+        Hazelcast.newHazelcastInstance(config);
+
+        BucketBuilder builder = Buckets.withNanoTimePrecision().withLimitedBandwidth(Long.MAX_VALUE / 2, TimeUnit.DAYS, 1);
+        GridConfigurationRegistry.register(CONFIGURATION_ID, builder.createConfiguration());
+
+        String localKey = findKey(member, true);
+        String remoteKey = findKey(member, false);
+        binaryLocalOwnerBucket = builder.buildHazelcast(member, "binary", localKey);
+        binaryRemoteOwnerBucket = builder.buildHazelcast(member, "binary", remoteKey);
+        objectLocalOwnerBucket = builder.buildHazelcast(member, "object", localKey);
+        objectRemoteOwnerBucket = builder.buildHazelcast(member, "object", remoteKey);
+    }
+
+    private static String findKey(HazelcastInstance member, boolean ownedByMember) {
+        for (int i = 0; ; i++) {
+            String key = "key-" + i;
+            boolean local = member.getPartitionService().getPartition(key).getOwner().localMember();
+            if (local == ownedByMember) {
+                return key;
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Hazelcast.shutdownAll();
+        GridConfigurationRegistry.unregister(CONFIGURATION_ID);
+    }
+
+}
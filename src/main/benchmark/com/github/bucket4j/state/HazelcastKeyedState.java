@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.state;
+
+import com.github.bucket4j.BucketBuilder;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.GridBucketTable;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+public class HazelcastKeyedState {
+
+    @Param({"1", "3"})
+    public int memberCount;
+
+    @Param({"10000"})
+    public int keyCount;
+
+    public IMap<Object, GridBucketState> imap;
+
+    public BucketBuilder builder;
+
+    public GridBucketTable<Integer> table;
+
+    @Setup
+    public void setUp() {
+        Config config = new Config();
+        config.setProperty("hazelcast.logging.type", "none");
+        HazelcastInstance member = Hazelcast.newHazelcastInstance(config);
+        for (int i = 1; i < memberCount; i++) {
+            Hazelcast.newHazelcastInstance(config);
+        }
+        imap = member.getMap("buckets");
+        builder = Buckets.withNanoTimePrecision().withLimitedBandwidth(Long.MAX_VALUE / 2, TimeUnit.DAYS, 1);
+        table = builder.buildHazelcastTable(imap);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Hazelcast.shutdownAll();
+    }
+
+    public int randomKey() {
+        return ThreadLocalRandom.current().nextInt(keyCount);
+    }
+
+}
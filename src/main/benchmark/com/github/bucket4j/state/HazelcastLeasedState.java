@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.state;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.grid.GridBucketState;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+public class HazelcastLeasedState {
+
+    @Param({"10", "100", "1000"})
+    public long tokensPerLease;
+
+    public Bucket gridBucket;
+
+    public Bucket leasedBucket;
+
+    @Setup
+    public void setUp() {
+        Config config = new Config();
+        config.setProperty("hazelcast.logging.type", "none");
+        HazelcastInstance member = Hazelcast.newHazelcastInstance(config);
+        // second member owns half of partitions, so bucket can be stored remotely
+        Hazelcast.newHazelcastInstance(config);
+        IMap<Object, GridBucketState> imap = member.getMap("buckets");
+
+        gridBucket = Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(Long.MAX_VALUE / 2, TimeUnit.DAYS, 1)
+                .buildHazelcast(imap, "grid");
+        leasedBucket = Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(Long.MAX_VALUE / 2, TimeUnit.DAYS, 1)
+                .withTokenLease(tokensPerLease, 1, TimeUnit.SECONDS)
+                .buildHazelcast(imap, "leased");
+    }
+
+    @TearDown
+    public void tearDown() {
+        Hazelcast.shutdownAll();
+    }
+
+}
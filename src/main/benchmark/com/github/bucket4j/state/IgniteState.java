@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.state;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketBuilder;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.GridConfigurationRegistry;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded Ignite node with one bucket which configuration is registered in {@link GridConfigurationRegistry}
+ * and one bucket which configuration is sent with each invocation, both configurations have three bandwidths.
+ */
+@State(Scope.Benchmark)
+public class IgniteState {
+
+    private static final String CONFIGURATION_ID = "benchmark";
+
+    public Ignite ignite;
+
+    public Bucket registeredConfigurationBucket;
+
+    public Bucket unregisteredConfigurationBucket;
+
+    @Setup
+    public void setUp() {
+        ignite = Ignition.start();
+        IgniteCache<Object, GridBucketState> cache = ignite.getOrCreateCache(new CacheConfiguration<Object, GridBucketState>("buckets"));
+
+        BucketBuilder registered = builder();
+        GridConfigurationRegistry.register(CONFIGURATION_ID, registered.createConfiguration());
+        registeredConfigurationBucket = registered.buildIgnite(cache, "registered");
+        unregisteredConfigurationBucket = builder().buildIgnite(cache, "unregistered");
+    }
+
+    private static BucketBuilder builder() {
+        return Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(Long.MAX_VALUE / 8, TimeUnit.NANOSECONDS, Long.MAX_VALUE / 8)
+                .withLimitedBandwidth(Long.MAX_VALUE / 4, TimeUnit.NANOSECONDS, Long.MAX_VALUE / 4)
+                .withLimitedBandwidth(Long.MAX_VALUE / 2, TimeUnit.NANOSECONDS, Long.MAX_VALUE / 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ignite.close();
+        GridConfigurationRegistry.unregister(CONFIGURATION_ID);
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.state;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.Buckets;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+public class LocalCachedTimePrecisionState {
+
+    @Param({"100", "1000"})
+    public long resolutionMicros;
+
+    public Bucket bucket;
+
+    @Setup
+    public void setUp() {
+        bucket = Buckets.withCachedTimePrecision(resolutionMicros, TimeUnit.MICROSECONDS)
+                .withLimitedBandwidth(Long.MAX_VALUE / 2, TimeUnit.NANOSECONDS, Long.MAX_VALUE / 2)
+                .build();
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.state;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketBuilder;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.local.LockBasedBucket;
+import com.github.bucket4j.local.LockFreeBucket;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+public class LocalLockBasedState {
+
+    @Param({"1", "2", "4"})
+    public int bandwidthCount;
+
+    public Bucket lockFreeBucket;
+
+    public Bucket lockBasedBucket;
+
+    public Bucket spinningLockBasedBucket;
+
+    @Setup
+    public void setUp() {
+        BucketBuilder builder = Buckets.withNanoTimePrecision();
+        // each next bandwidth has the same rate but ten times bigger capacity, so bandwidths never overlap and never become exhausted
+        long capacity = 1_000_000_000L;
+        long period = 1;
+        for (int i = 0; i < bandwidthCount; i++) {
+            builder.withLimitedBandwidth(capacity, TimeUnit.SECONDS, period);
+            capacity *= 10;
+            period *= 10;
+        }
+        lockFreeBucket = new LockFreeBucket(builder.createConfiguration());
+        lockBasedBucket = new LockBasedBucket(builder.createConfiguration(), 0);
+        spinningLockBasedBucket = new LockBasedBucket(builder.createConfiguration(), 64);
+    }
+
+}
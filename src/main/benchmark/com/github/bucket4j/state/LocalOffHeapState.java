@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.state;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketBuilder;
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.local.LockFreeBucket;
+import com.github.bucket4j.local.OffHeapBucketTable;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+public class LocalOffHeapState {
+
+    @Param({"1000000"})
+    public int keyCount;
+
+    public OffHeapBucketTable table;
+
+    public ConcurrentHashMap<Long, Bucket> map;
+
+    @Setup
+    public void setUp() {
+        BucketBuilder builder = Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(100, TimeUnit.MINUTES, 1)
+                .withLimitedBandwidth(10, TimeUnit.SECONDS, 1);
+        BucketConfiguration configuration = builder.createConfiguration();
+
+        long heapBefore = usedHeap();
+        map = new ConcurrentHashMap<>();
+        for (long key = 0; key < keyCount; key++) {
+            Bucket bucket = new LockFreeBucket(configuration);
+            bucket.tryConsumeSingleToken();
+            map.put(key, bucket);
+        }
+        long heapOfMap = usedHeap() - heapBefore;
+
+        heapBefore = usedHeap();
+        table = builder.buildOffHeapTable(keyCount);
+        for (long key = 0; key < keyCount; key++) {
+            table.tryConsumeSingleToken(key);
+        }
+        long heapOfTable = usedHeap() - heapBefore;
+
+        System.out.println();
+        System.out.println("Heap bytes per key: map of LockFreeBucket=" + heapOfMap / keyCount + ", off-heap table=" + heapOfTable / keyCount);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.state;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketBuilder;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.local.BucketRegistry;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+public class LocalRegistryState {
+
+    @Param({"10000000"})
+    public int keyCount;
+
+    public BucketBuilder builder;
+
+    public BucketRegistry<Long> registry;
+
+    public ConcurrentHashMap<Long, Bucket> map;
+
+    @Setup
+    public void setUp() {
+        builder = Buckets.withNanoTimePrecision().withLimitedBandwidth(100, TimeUnit.MINUTES, 1);
+        registry = builder.buildRegistry(1, TimeUnit.MINUTES, keyCount);
+        map = new ConcurrentHashMap<>();
+        for (long key = 0; key < keyCount; key++) {
+            registry.tryConsumeSingleToken(key);
+            map.put(key, builder.build());
+        }
+    }
+
+    public Bucket getOrCreateBucket(Long key) {
+        Bucket bucket = map.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        Bucket newBucket = builder.build();
+        bucket = map.putIfAbsent(key, newBucket);
+        return bucket != null ? bucket : newBucket;
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.state;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketBuilder;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.local.LockFreeBucket;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+public class LocalStripedState {
+
+    @Param({"4", "16"})
+    public int stripeCount;
+
+    public Bucket stripedBucket;
+
+    public Bucket lockFreeBucket;
+
+    @Setup
+    public void setUp() {
+        BucketBuilder builder = Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(Long.MAX_VALUE / 2, TimeUnit.NANOSECONDS, Long.MAX_VALUE / 2);
+        stripedBucket = builder.buildStriped(stripeCount);
+        lockFreeBucket = new LockFreeBucket(builder.createConfiguration());
+    }
+
+}
@@ -15,16 +15,26 @@
  */
 package com.github.bucket4j;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 import static com.github.bucket4j.BucketExceptions.nonPositiveNanosToWait;
+import static com.github.bucket4j.BucketExceptions.nonPositiveTokensToAdd;
 import static com.github.bucket4j.BucketExceptions.nonPositiveTokensToConsume;
+import static com.github.bucket4j.BucketExceptions.nullScheduler;
+import static com.github.bucket4j.BucketExceptions.tokensToConsumeExceedCapacity;
 
 public abstract class AbstractBucket implements Bucket {
 
     protected static final long UNSPECIFIED_WAITING_LIMIT = -1;
     protected final BucketConfiguration configuration;
+    private final AsyncBucket asyncView;
 
     protected AbstractBucket(BucketConfiguration configuration) {
         this.configuration = configuration;
+        this.asyncView = new AsyncView();
     }
 
     protected abstract long consumeAsMuchAsPossibleImpl(long limit);
@@ -33,6 +43,82 @@ public abstract class AbstractBucket implements Bucket {
 
     protected abstract boolean consumeOrAwaitImpl(long tokensToConsume, long waitIfBusyNanos) throws InterruptedException;
 
+    protected abstract void addTokensImpl(long tokensToAdd);
+
+    protected CompletableFuture<Long> consumeAsMuchAsPossibleAsyncImpl(long limit) {
+        return CompletableFuture.completedFuture(consumeAsMuchAsPossibleImpl(limit));
+    }
+
+    protected CompletableFuture<Boolean> tryConsumeAsyncImpl(long tokensToConsume) {
+        return CompletableFuture.completedFuture(tryConsumeImpl(tokensToConsume));
+    }
+
+    protected CompletableFuture<Void> addTokensAsyncImpl(long tokensToAdd) {
+        addTokensImpl(tokensToAdd);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    protected CompletableFuture<BucketState> createSnapshotAsyncImpl() {
+        return CompletableFuture.completedFuture(createSnapshot());
+    }
+
+    /**
+     * Sleeps until tokens reserved at {@code reservationTime} are refilled.
+     * Time meter is allowed to wake up earlier than requested, for example because of spurious wake-up of parked thread,
+     * so sleeping is repeated until time meter reaches the deadline.
+     *
+     * @param reservationTime time at which tokens were reserved
+     * @param timeToSleep time required to refill reserved tokens
+     */
+    protected void sleepUntilReservedTokensRefilled(long reservationTime, long timeToSleep) throws InterruptedException {
+        TimeMeter timeMeter = configuration.getTimeMeter();
+        long deadline = reservationTime + timeToSleep;
+        long remaining = timeToSleep;
+        while (remaining > 0) {
+            timeMeter.sleep(remaining);
+            remaining = deadline - timeMeter.currentTime();
+        }
+    }
+
+    /**
+     * Sleeps until {@code reservedTokens} reserved at {@code reservationTime} are refilled.
+     * When waiting thread is interrupted then reserved tokens are returned to the bucket via {@link #addTokensImpl(long)},
+     * so interrupted consumer does not delay consumers which reserved tokens after it.
+     *
+     * @param reservedTokens count of tokens which were reserved
+     * @param reservationTime time at which tokens were reserved
+     * @param timeToSleep time required to refill reserved tokens
+     */
+    protected void sleepUntilReservedTokensRefilled(long reservedTokens, long reservationTime, long timeToSleep) throws InterruptedException {
+        try {
+            sleepUntilReservedTokensRefilled(reservationTime, timeToSleep);
+        } catch (InterruptedException e) {
+            addTokensImpl(reservedTokens);
+            throw e;
+        }
+    }
+
+    /**
+     * Consumes tokens if they are available, otherwise calculates time which is required to refill missing tokens.
+     *
+     * Default implementation is not atomic, tokens are consumed via {@link #tryConsumeImpl(long)} and deficit is calculated from snapshot,
+     * it is acceptable because calculated delay is just a hint when to make the next attempt.
+     *
+     * @return zero if tokens have been consumed, {@link Long#MAX_VALUE} if tokens can never be consumed, otherwise time to close deficit
+     */
+    protected CompletableFuture<Long> consumeOrCalculateTimeToCloseDeficitAsyncImpl(long tokensToConsume) {
+        if (tryConsumeImpl(tokensToConsume)) {
+            return CompletableFuture.completedFuture(0L);
+        }
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        long currentTime = configuration.getTimeMeter().currentTime();
+        BucketState snapshot = createSnapshot();
+        snapshot.refill(bandwidths, currentTime);
+        long timeToCloseDeficit = snapshot.delayAfterWillBePossibleToConsume(bandwidths, currentTime, tokensToConsume);
+        // tokens were refilled after unsuccessful attempt, so just retry as soon as possible
+        return CompletableFuture.completedFuture(Math.max(timeToCloseDeficit, 1L));
+    }
+
     @Override
     public boolean tryConsumeSingleToken() {
         return tryConsumeImpl(1);
@@ -90,9 +176,176 @@ public abstract class AbstractBucket implements Bucket {
         return consumeAsMuchAsPossibleImpl(Long.MAX_VALUE);
     }
 
+    @Override
+    public void addTokens(long tokensToAdd) {
+        if (tokensToAdd <= 0) {
+            throw nonPositiveTokensToAdd(tokensToAdd);
+        }
+        addTokensImpl(tokensToAdd);
+    }
+
     @Override
     public BucketConfiguration getConfiguration() {
         return configuration;
     }
 
-}
\ No newline at end of file
+    @Override
+    public AsyncBucket asAsync() {
+        return asyncView;
+    }
+
+    private class AsyncView implements AsyncBucket {
+
+        @Override
+        public CompletableFuture<Boolean> tryConsumeSingleToken() {
+            return tryConsumeAsyncImpl(1);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> tryConsume(long tokensToConsume) {
+            if (tokensToConsume <= 0) {
+                throw nonPositiveTokensToConsume(tokensToConsume);
+            }
+            return tryConsumeAsyncImpl(tokensToConsume);
+        }
+
+        @Override
+        public CompletableFuture<Long> consumeAsMuchAsPossible() {
+            return consumeAsMuchAsPossibleAsyncImpl(Long.MAX_VALUE);
+        }
+
+        @Override
+        public CompletableFuture<Long> consumeAsMuchAsPossible(long limit) {
+            if (limit <= 0) {
+                throw nonPositiveTokensToConsume(limit);
+            }
+            return consumeAsMuchAsPossibleAsyncImpl(limit);
+        }
+
+        @Override
+        public CompletableFuture<Void> addTokens(long tokensToAdd) {
+            if (tokensToAdd <= 0) {
+                throw nonPositiveTokensToAdd(tokensToAdd);
+            }
+            return addTokensAsyncImpl(tokensToAdd);
+        }
+
+        @Override
+        public CompletableFuture<BucketState> createSnapshot() {
+            return createSnapshotAsyncImpl();
+        }
+
+        @Override
+        public CompletableFuture<Void> consumeSingleToken(ScheduledExecutorService scheduler) {
+            return consume(1, scheduler);
+        }
+
+        @Override
+        public CompletableFuture<Void> consume(long tokensToConsume, ScheduledExecutorService scheduler) {
+            if (tokensToConsume <= 0) {
+                throw nonPositiveTokensToConsume(tokensToConsume);
+            }
+            if (scheduler == null) {
+                throw nullScheduler();
+            }
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            new ScheduledConsumption(tokensToConsume, UNSPECIFIED_WAITING_LIMIT, scheduler).start().whenComplete((consumed, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else if (consumed) {
+                    result.complete(null);
+                } else {
+                    result.completeExceptionally(tokensToConsumeExceedCapacity(tokensToConsume));
+                }
+            });
+            return result;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> tryConsumeSingleToken(long maxWaitTime, ScheduledExecutorService scheduler) {
+            return tryConsume(1, maxWaitTime, scheduler);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> tryConsume(long tokensToConsume, long maxWaitTime, ScheduledExecutorService scheduler) {
+            if (tokensToConsume <= 0) {
+                throw nonPositiveTokensToConsume(tokensToConsume);
+            }
+            if (maxWaitTime <= 0) {
+                throw nonPositiveNanosToWait(maxWaitTime);
+            }
+            if (scheduler == null) {
+                throw nullScheduler();
+            }
+            return new ScheduledConsumption(tokensToConsume, maxWaitTime, scheduler).start();
+        }
+
+    }
+
+    /**
+     * Counterpart of {@link #consumeOrAwaitImpl(long, long)} which schedules the next attempt instead of sleeping.
+     */
+    private class ScheduledConsumption {
+
+        private final long tokensToConsume;
+        private final long waitIfBusyTimeLimit;
+        private final ScheduledExecutorService scheduler;
+        private final long methodStartTime;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private ScheduledConsumption(long tokensToConsume, long waitIfBusyTimeLimit, ScheduledExecutorService scheduler) {
+            this.tokensToConsume = tokensToConsume;
+            this.waitIfBusyTimeLimit = waitIfBusyTimeLimit;
+            this.scheduler = scheduler;
+            this.methodStartTime = waitIfBusyTimeLimit > 0 ? configuration.getTimeMeter().currentTime() : 0;
+        }
+
+        private CompletableFuture<Boolean> start() {
+            attempt();
+            return result;
+        }
+
+        private void attempt() {
+            CompletableFuture<Long> attemptFuture;
+            try {
+                attemptFuture = consumeOrCalculateTimeToCloseDeficitAsyncImpl(tokensToConsume);
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+                return;
+            }
+            attemptFuture.whenComplete((timeToCloseDeficit, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    onAttemptCompleted(timeToCloseDeficit);
+                }
+            });
+        }
+
+        private void onAttemptCompleted(long timeToCloseDeficit) {
+            if (timeToCloseDeficit == 0) {
+                result.complete(true);
+                return;
+            }
+            if (timeToCloseDeficit == Long.MAX_VALUE) {
+                result.complete(false);
+                return;
+            }
+            if (waitIfBusyTimeLimit > 0) {
+                long methodDuration = configuration.getTimeMeter().currentTime() - methodStartTime;
+                if (timeToCloseDeficit >= waitIfBusyTimeLimit - methodDuration) {
+                    result.complete(false);
+                    return;
+                }
+            }
+            long delayNanos = configuration.getTimeMeter().toNanos(timeToCloseDeficit);
+            try {
+                scheduler.schedule(this::attempt, delayNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Non-blocking view of a {@link Bucket}. Each method has the same semantic as its counterpart in {@link Bucket},
+ * but instead of blocking the caller it returns a future which completes when the operation has been executed.
+ *
+ * For grid buckets the future completes when the response from the grid node which owns the bucket has been received,
+ * so the calling thread is never blocked by network round trip.
+ * For local buckets the operations are cheap, so they are executed immediately and returned futures are already completed.
+ *
+ * Waiting methods do not park any thread, instead of this the next attempt is scheduled on provided {@link ScheduledExecutorService}
+ * at the moment when required amount of tokens is expected to be refilled, so single scheduler thread can serve any number of waiters.
+ *
+ * Arguments are validated synchronously, so illegal arguments are reported by exception thrown from the method itself
+ * rather than through the returned future.
+ *
+ * @see Bucket#asAsync()
+ */
+public interface AsyncBucket {
+
+    /**
+     * Asynchronous version of {@link Bucket#tryConsumeSingleToken()}
+     *
+     * @return future which will be completed by {@code true} if a token was consumed, {@code false} otherwise.
+     */
+    CompletableFuture<Boolean> tryConsumeSingleToken();
+
+    /**
+     * Asynchronous version of {@link Bucket#tryConsume(long)}
+     *
+     * @param numTokens The number of tokens to consume from the bucket, must be a positive number.
+     * @return future which will be completed by {@code true} if the tokens were consumed, {@code false} otherwise.
+     */
+    CompletableFuture<Boolean> tryConsume(long numTokens);
+
+    /**
+     * Asynchronous version of {@link Bucket#consumeAsMuchAsPossible()}
+     *
+     * @return future which will be completed by number of tokens which has been consumed, or zero if was consumed nothing.
+     */
+    CompletableFuture<Long> consumeAsMuchAsPossible();
+
+    /**
+     * Asynchronous version of {@link Bucket#consumeAsMuchAsPossible(long)}
+     *
+     * @param limit maximum nubmer of tokens to consume, should be positive.
+     * @return future which will be completed by number of tokens which has been consumed, or zero if was consumed nothing.
+     */
+    CompletableFuture<Long> consumeAsMuchAsPossible(long limit);
+
+    /**
+     * Asynchronous version of {@link Bucket#addTokens(long)}
+     *
+     * @param tokensToAdd number of tokens to add, must be a positive number.
+     * @return future which will be completed when tokens have been added.
+     */
+    CompletableFuture<Void> addTokens(long tokensToAdd);
+
+    /**
+     * Asynchronous version of {@link Bucket#createSnapshot()}
+     *
+     * @return future which will be completed by snapshot of bucket state.
+     */
+    CompletableFuture<BucketState> createSnapshot();
+
+    /**
+     * Asynchronous version of {@link Bucket#consumeSingleToken()}, which does not park any thread during waiting.
+     * This is equivalent for {@code consume(1, scheduler)}
+     *
+     * @param scheduler scheduler which is used to retry consumption when token is expected to be available.
+     * @return future which will be completed when token has been consumed.
+     */
+    CompletableFuture<Void> consumeSingleToken(ScheduledExecutorService scheduler);
+
+    /**
+     * Asynchronous version of {@link Bucket#consume(long)}, which does not park any thread during waiting.
+     *
+     * If {@code numTokens} is greater than capacity of bucket, then returned future is completed exceptionally by {@link IllegalArgumentException},
+     * because such amount of tokens can never be consumed.
+     *
+     * @param numTokens The number of tokens to consume from the bucket, must be a positive number.
+     * @param scheduler scheduler which is used to retry consumption when tokens are expected to be available.
+     * @return future which will be completed when tokens have been consumed.
+     */
+    CompletableFuture<Void> consume(long numTokens, ScheduledExecutorService scheduler);
+
+    /**
+     * Asynchronous version of {@link Bucket#tryConsumeSingleToken(long)}, which does not park any thread during waiting.
+     * This is equivalent for {@code tryConsume(1, maxWaitTime, scheduler)}
+     *
+     * @param maxWaitTime limit of time which caller can wait, in units of {@link TimeMeter} of this bucket.
+     * @param scheduler scheduler which is used to retry consumption when token is expected to be available.
+     * @return future which will be completed by {@code true} if token has been consumed or {@code false} when token has not been consumed
+     */
+    CompletableFuture<Boolean> tryConsumeSingleToken(long maxWaitTime, ScheduledExecutorService scheduler);
+
+    /**
+     * Asynchronous version of {@link Bucket#tryConsume(long, long)}, which does not park any thread during waiting.
+     *
+     * @param numTokens The number of tokens to consume from the bucket.
+     * @param maxWaitTime limit of time which caller can wait, in units of {@link TimeMeter} of this bucket.
+     * @param scheduler scheduler which is used to retry consumption when tokens are expected to be available.
+     * @return future which will be completed by {@code true} if {@code numTokens} has been consumed or {@code false} when {@code numTokens} has not been consumed
+     */
+    CompletableFuture<Boolean> tryConsume(long numTokens, long maxWaitTime, ScheduledExecutorService scheduler);
+
+}
@@ -65,6 +65,25 @@ public class Bandwidth implements Serializable {
         }
     }
 
+    /**
+     * Unlike {@link #consume(BucketState, long)} does not clamp size of bandwidth to zero,
+     * so reserved tokens which were not refilled yet are tracked as debt which is paid off by subsequent refills.
+     */
+    public void reserve(BucketState state, long tokensToReserve) {
+        setCurrentSize(state, getCurrentSize(state) - tokensToReserve);
+    }
+
+    public void addTokens(BucketState state, long tokensToAdd, long currentTime) {
+        final long maxCapacity = adjuster.getCapacity(currentTime);
+        long currentSize = getCurrentSize(state);
+        if (maxCapacity - currentSize <= tokensToAdd) {
+            setCurrentSize(state, maxCapacity);
+            setRoundingError(state, 0);
+        } else {
+            setCurrentSize(state, currentSize + tokensToAdd);
+        }
+    }
+
     public void refill(BucketState state, long previousRefillTime, long currentTime) {
         final long maxCapacity = adjuster.getCapacity(currentTime);
         long currentSize = getCurrentSize(state);
@@ -74,13 +93,27 @@ public class Bandwidth implements Serializable {
             setRoundingError(state, 0);
             return;
         }
+        if (maxCapacity <= 0) {
+            // capacity adjusted down to zero refills nothing, debt stays until capacity grows back
+            return;
+        }
 
         long durationSinceLastRefill = currentTime - previousRefillTime;
+        if (durationSinceLastRefill <= 0) {
+            // time meter went backwards, tokens for this interval have already been refilled
+            return;
+        }
 
         if (durationSinceLastRefill > period) {
-            setCurrentSize(state, maxCapacity);
-            setRoundingError(state, 0);
-            return;
+            long fullPeriods = durationSinceLastRefill / period;
+            // bandwidth in debt can require more than one period to be refilled up to capacity
+            if (currentSize >= 0 || fullPeriods > (maxCapacity - 1 - currentSize) / maxCapacity) {
+                setCurrentSize(state, maxCapacity);
+                setRoundingError(state, 0);
+                return;
+            }
+            currentSize += fullPeriods * maxCapacity;
+            durationSinceLastRefill %= period;
         }
 
         long roundingError = getRoundingError(state);
@@ -88,6 +121,7 @@ public class Bandwidth implements Serializable {
         long calculatedRefill = divided / period;
         if (calculatedRefill == 0) {
             roundingError = divided % period;
+            setCurrentSize(state, currentSize);
             setRoundingError(state, roundingError);
             return;
         }
@@ -114,6 +148,10 @@ public class Bandwidth implements Serializable {
             return Long.MAX_VALUE;
         }
         long deficit = numTokens - currentSize;
+        if (deficit > Long.MAX_VALUE / period) {
+            // debt is so deep that waiting time can not be expressed
+            return Long.MAX_VALUE;
+        }
         return period * deficit / maxCapacity;
     }
 
@@ -125,6 +163,18 @@ public class Bandwidth implements Serializable {
         return adjuster.getCapacity(currentTime);
     }
 
+    public long getInitialCapacity() {
+        return initialCapacity;
+    }
+
+    public long getPeriod() {
+        return period;
+    }
+
+    public BandwidthAdjuster getAdjuster() {
+        return adjuster;
+    }
+
     private void setCurrentSize(BucketState state, long currentSize) {
         state.setValue(stateOffset + CURRENT_SIZE_OFFSET, currentSize);
     }
@@ -45,6 +45,10 @@ public interface BandwidthAdjuster extends Serializable {
             return value;
         }
 
+        public long getValue() {
+            return value;
+        }
+
         @Override
         public String toString() {
             return "ImmutableCapacity{" +
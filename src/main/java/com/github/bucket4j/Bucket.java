@@ -107,8 +107,25 @@ public interface Bucket {
      */
     boolean tryConsume(long numTokens, long maxWaitTime) throws InterruptedException;
 
+    /**
+     * Adds tokens to the bucket, but bucket can not hold more tokens than its capacity, so excess tokens are lost.
+     * It is intended to return tokens which have been consumed but not used, for example when batch of consumptions was rolled back.
+     *
+     * @param tokensToAdd number of tokens to add, must be a positive number.
+     */
+    void addTokens(long tokensToAdd);
+
     BucketState createSnapshot();
 
     BucketConfiguration getConfiguration();
 
+    /**
+     * Returns the non-blocking view of this bucket.
+     *
+     * @return asynchronous API for this bucket
+     *
+     * @see AsyncBucket
+     */
+    AsyncBucket asAsync();
+
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static com.github.bucket4j.BucketExceptions.guaranteedBandwidthNotSupportedByBucketBatch;
+import static com.github.bucket4j.BucketExceptions.nonPositiveTokensToConsume;
+
+/**
+ * Consumes tokens from several buckets as a single unit, when tokens can not be consumed from all buckets they are returned to buckets which already consumed them.
+ * It is intended for cases when each request is checked against several limits, for example per-user, per-tenant and global.
+ * <p>
+ * Attempts are made in order of buckets, local buckets answer immediately, so following buckets are not touched after first rejection.
+ * Attempts on grid buckets are executed concurrently, so the batch costs single network round trip instead of one round trip per bucket.
+ * When any attempt was rejected or failed, tokens are returned via {@link Bucket#addTokens(long)} to buckets which already consumed them.
+ * <p>
+ * Rollback is compensation rather than transaction: concurrent consumers can observe temporarily consumed tokens,
+ * and tokens returned to a bucket which has been refilled in the meantime are limited by its capacity, so such bucket can lose them.
+ * Buckets with guaranteed bandwidth are not supported, because consumption which was allowed by guarantee
+ * does not take tokens from limited bandwidths, so such consumption can not be compensated.
+ */
+public final class BucketBatch {
+
+    private BucketBatch() {
+    }
+
+    /**
+     * Attempts to consume {@code numTokens} from each of {@code buckets}.
+     *
+     * @param numTokens The number of tokens to consume from each bucket, must be a positive number.
+     * @param buckets buckets to consume from
+     *
+     * @return {@code true} if the tokens were consumed from all buckets, {@code false} if tokens were rejected by any bucket
+     * and consumed tokens were returned to other buckets.
+     *
+     * @throws IllegalArgumentException if any of buckets has guaranteed bandwidth
+     */
+    public static boolean tryConsume(long numTokens, Bucket... buckets) {
+        try {
+            return tryConsumeAsync(numTokens, buckets).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking version of {@link #tryConsume(long, Bucket...)}
+     *
+     * @param numTokens The number of tokens to consume from each bucket, must be a positive number.
+     * @param buckets buckets to consume from
+     *
+     * @return future which will be completed by {@code true} if the tokens were consumed from all buckets,
+     * or by {@code false} if tokens were rejected by any bucket and consumed tokens were returned to other buckets.
+     *
+     * @throws IllegalArgumentException if any of buckets has guaranteed bandwidth
+     */
+    public static CompletableFuture<Boolean> tryConsumeAsync(long numTokens, Bucket... buckets) {
+        if (numTokens <= 0) {
+            throw nonPositiveTokensToConsume(numTokens);
+        }
+        for (Bucket bucket : buckets) {
+            if (hasGuaranteedBandwidth(bucket)) {
+                throw guaranteedBandwidthNotSupportedByBucketBatch();
+            }
+        }
+
+        List<CompletableFuture<Boolean>> attempts = new ArrayList<>(buckets.length);
+        for (Bucket bucket : buckets) {
+            CompletableFuture<Boolean> attempt = bucket.asAsync().tryConsume(numTokens);
+            attempts.add(attempt);
+            if (isRejected(attempt)) {
+                break;
+            }
+        }
+
+        CompletableFuture<?>[] attemptsArray = attempts.toArray(new CompletableFuture<?>[attempts.size()]);
+        return CompletableFuture.allOf(attemptsArray)
+                .handle((ignored, error) -> null)
+                .thenCompose(ignored -> completeOrRollback(numTokens, Arrays.asList(buckets), attempts));
+    }
+
+    private static CompletableFuture<Boolean> completeOrRollback(long numTokens, List<Bucket> buckets, List<CompletableFuture<Boolean>> attempts) {
+        boolean allConsumed = attempts.size() == buckets.size();
+        Throwable failure = null;
+        for (int i = 0; i < attempts.size(); i++) {
+            CompletableFuture<Boolean> attempt = attempts.get(i);
+            if (attempt.isCompletedExceptionally()) {
+                allConsumed = false;
+                if (failure == null) {
+                    failure = causeOf(attempt);
+                }
+            } else if (!attempt.join()) {
+                allConsumed = false;
+            }
+        }
+        if (allConsumed) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        List<CompletableFuture<Void>> refunds = new ArrayList<>();
+        for (int i = 0; i < attempts.size(); i++) {
+            CompletableFuture<Boolean> attempt = attempts.get(i);
+            Bucket bucket = buckets.get(i);
+            if (!attempt.isCompletedExceptionally() && attempt.join()) {
+                refunds.add(bucket.asAsync().addTokens(numTokens));
+            }
+        }
+        Throwable attemptFailure = failure;
+        return CompletableFuture.allOf(refunds.toArray(new CompletableFuture<?>[refunds.size()]))
+                .thenApply(ignored -> {
+                    if (attemptFailure != null) {
+                        throw new CompletionException(attemptFailure);
+                    }
+                    return false;
+                });
+    }
+
+    private static boolean hasGuaranteedBandwidth(Bucket bucket) {
+        for (Bandwidth bandwidth : bucket.getConfiguration().getBandwidths()) {
+            if (bandwidth.isGuaranteed()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRejected(CompletableFuture<Boolean> attempt) {
+        return attempt.isDone() && !attempt.isCompletedExceptionally() && !attempt.join();
+    }
+
+    private static Throwable causeOf(CompletableFuture<Boolean> failedAttempt) {
+        Throwable error = failedAttempt.handle((result, e) -> e).join();
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+}
@@ -16,6 +16,9 @@
 
 package com.github.bucket4j;
 
+import static com.github.bucket4j.BucketExceptions.negativeSpinAttempts;
+import static com.github.bucket4j.BucketExceptions.nonPositiveLeaseTime;
+import static com.github.bucket4j.BucketExceptions.nonPositiveTokensPerLease;
 import static com.github.bucket4j.BucketExceptions.nullTimeMetter;
 
 import java.io.Serializable;
@@ -23,27 +26,61 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
+import com.github.bucket4j.grid.CoalescingGridProxy;
 import com.github.bucket4j.grid.GridBucket;
+import com.github.bucket4j.grid.GridBucketExpiration;
 import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.GridBucketTable;
+import com.github.bucket4j.grid.GridBulkProxy;
 import com.github.bucket4j.grid.GridProxy;
+import com.github.bucket4j.grid.LeasedGridBucket;
+import com.github.bucket4j.grid.hazelcast.HazelcastBulkProxy;
 import com.github.bucket4j.grid.hazelcast.HazelcastProxy;
+import com.github.bucket4j.grid.ignite.IgniteBulkProxy;
 import com.github.bucket4j.grid.ignite.IgniteProxy;
+import com.github.bucket4j.grid.jcache.JCacheBulkProxy;
+import com.github.bucket4j.grid.jcache.JCacheProxy;
+import com.github.bucket4j.local.BucketRegistry;
+import com.github.bucket4j.local.LockBasedBucket;
 import com.github.bucket4j.local.LockFreeBucket;
+import com.github.bucket4j.local.OffHeapBucketTable;
+import com.github.bucket4j.local.SingleBandwidthBucket;
+import com.github.bucket4j.local.StripedBucket;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.IMap;
 
 import org.apache.ignite.IgniteCache;
 
+import javax.cache.Cache;
+import javax.cache.expiry.Duration;
+import javax.cache.expiry.ModifiedExpiryPolicy;
+
 /**
  * A builder for buckets. Builder can be reused, i.e. one builder can create multiple buckets with similar configuration.
  *
  * @see com.github.bucket4j.local.LockFreeBucket
+ * @see com.github.bucket4j.local.LockBasedBucket
+ * @see com.github.bucket4j.local.SingleBandwidthBucket
+ * @see com.github.bucket4j.local.StripedBucket
+ * @see com.github.bucket4j.local.BucketRegistry
+ * @see com.github.bucket4j.local.OffHeapBucketTable
  * @see com.github.bucket4j.grid.GridBucket
  */
 public final class BucketBuilder {
 
     private TimeMeter timeMeter = TimeMeter.SYSTEM_NANOTIME;
     private List<BandwidthDefinition> bandwidths = new ArrayList<>(1);
+    private BucketConfiguration configuration;
+    private boolean lockBasedSynchronization = false;
+    private int spinAttemptsBeforePark = 0;
+    private long tokensPerLease = 0;
+    private long leaseTime = 0;
+    private boolean requestCoalescing = false;
+    private boolean backupByCommandReplay = false;
+    private boolean gridEntryExpiration = false;
 
     /**
      * Creates a builder for buckets
@@ -58,15 +95,96 @@ public final class BucketBuilder {
     }
 
     /**
-     * Constructs an instance of {@link com.github.bucket4j.local.LockFreeBucket}
+     * Constructs a local bucket. When lock based synchronization was requested via {@link #withLockBasedSynchronization(int)}
+     * then an instance of {@link com.github.bucket4j.local.LockBasedBucket} is constructed.
+     * Else lock-free bucket is constructed: when configuration consists from exactly one limited bandwidth with immutable capacity
+     * an instance of {@link com.github.bucket4j.local.SingleBandwidthBucket}, and {@link com.github.bucket4j.local.LockFreeBucket} otherwise.
+     * Each kind of local bucket serves blocked consumers in order of arrival, because waiting consumer reserves required tokens before sleeping.
      *
-     * @return an instance of {@link com.github.bucket4j.local.LockFreeBucket}
+     * @return an instance of {@link com.github.bucket4j.local.LockBasedBucket}, {@link com.github.bucket4j.local.SingleBandwidthBucket}
+     * or {@link com.github.bucket4j.local.LockFreeBucket}
      */
     public Bucket build() {
-        BucketConfiguration configuration = createConfiguration();
+        return buildLocal(createConfiguration(), lockBasedSynchronization, spinAttemptsBeforePark);
+    }
+
+    private static Bucket buildLocal(BucketConfiguration configuration, boolean lockBasedSynchronization, int spinAttemptsBeforePark) {
+        if (lockBasedSynchronization) {
+            return new LockBasedBucket(configuration, spinAttemptsBeforePark);
+        }
+        if (SingleBandwidthBucket.isApplicable(configuration)) {
+            return new SingleBandwidthBucket(configuration);
+        }
         return new LockFreeBucket(configuration);
     }
 
+    /**
+     * Constructs an instance of {@link com.github.bucket4j.local.StripedBucket},
+     * which is intended for buckets shared between many concurrent threads.
+     *
+     * @param stripeCount count of stripes between which tokens will be partitioned, should be positive.
+     *                    Count of CPU cores which concurrently access the bucket is a good value to start from.
+     *                    Count of stripes is reduced when it exceeds capacity of any bandwidth.
+     *
+     * @return an instance of {@link com.github.bucket4j.local.StripedBucket}
+     *
+     * @throws IllegalArgumentException if guaranteed bandwidth is configured
+     *
+     * @see com.github.bucket4j.local.StripedBucket
+     */
+    public Bucket buildStriped(int stripeCount) {
+        return new StripedBucket(createConfiguration(), stripeCount);
+    }
+
+    /**
+     * Constructs a registry of local buckets, each bucket in registry is identified by key and has configuration specified by this builder.
+     * Buckets are constructed in the same way as by {@link #build()}, synchronization options are captured at the moment of this call.
+     *
+     * @param maxIdleTime time after which bucket which was not accessed is evicted from registry, should be positive.
+     * @param timeUnit time unit of {@code maxIdleTime}
+     * @param maxBuckets maximum count of buckets in the registry, should be positive.
+     * @param <K> type of key
+     *
+     * @return an instance of {@link com.github.bucket4j.local.BucketRegistry}
+     *
+     * @see com.github.bucket4j.local.BucketRegistry
+     */
+    public <K> BucketRegistry<K> buildRegistry(long maxIdleTime, TimeUnit timeUnit, int maxBuckets) {
+        BucketConfiguration configuration = createConfiguration();
+        boolean lockBasedSynchronization = this.lockBasedSynchronization;
+        int spinAttemptsBeforePark = this.spinAttemptsBeforePark;
+        Supplier<Bucket> bucketFactory = () -> buildLocal(configuration, lockBasedSynchronization, spinAttemptsBeforePark);
+        return new BucketRegistry<>(configuration, bucketFactory, timeMeter.toBandwidthPeriod(timeUnit, maxIdleTime), maxBuckets);
+    }
+
+    /**
+     * Constructs a table of buckets identified by {@code long} keys, which stores state of buckets outside of java heap.
+     *
+     * @param maxKeys count of keys for which table should have enough space, should be positive.
+     *
+     * @return an instance of {@link com.github.bucket4j.local.OffHeapBucketTable}
+     *
+     * @see com.github.bucket4j.local.OffHeapBucketTable
+     */
+    public OffHeapBucketTable buildOffHeapTable(int maxKeys) {
+        return buildOffHeapTable(maxKeys, OffHeapBucketTable.DEFAULT_SEGMENT_COUNT);
+    }
+
+    /**
+     * Constructs a table of buckets identified by {@code long} keys, which stores state of buckets outside of java heap.
+     *
+     * @param maxKeys count of keys for which table should have enough space, should be positive.
+     * @param segmentCount count of independently locked segments, should be positive.
+     *
+     * @return an instance of {@link com.github.bucket4j.local.OffHeapBucketTable}
+     *
+     * @see com.github.bucket4j.local.OffHeapBucketTable
+     */
+    public OffHeapBucketTable buildOffHeapTable(int maxKeys, int segmentCount) {
+        BucketConfiguration configuration = createConfiguration();
+        return new OffHeapBucketTable(configuration, maxKeys, segmentCount);
+    }
+
     /**
      * Constructs an instance of {@link com.github.bucket4j.grid.GridBucket} which responsible to limit rate inside Hazelcast cluster.
      *
@@ -79,7 +197,25 @@ public final class BucketBuilder {
      */
     public Bucket buildHazelcast(IMap<Object, GridBucketState> imap, Serializable key) {
         BucketConfiguration configuration = createConfiguration();
-        return new GridBucket(configuration, new HazelcastProxy(imap, key));
+        return leaseIfRequested(new GridBucket(configuration, coalesceIfRequested(new HazelcastProxy(imap, key, backupByCommandReplay))));
+    }
+
+    /**
+     * Constructs an instance of {@link com.github.bucket4j.grid.GridBucket} which responsible to limit rate inside Hazelcast cluster,
+     * in-memory format of the map is validated before construction of bucket.
+     * Map with OBJECT in-memory format does not serialize state of bucket on each command,
+     * but requires configuration to be registered in {@link com.github.bucket4j.grid.GridConfigurationRegistry}.
+     *
+     * @param hazelcastInstance member of cluster, configuration of map is not available on the clients.
+     * @param mapName name of distributed map which will hold bucket inside cluster.
+     * @param key  for storing bucket inside map.
+     *
+     * @see com.github.bucket4j.grid.hazelcast.HazelcastProxy#checkInMemoryFormat
+     * @see #withGridEntryExpiration()
+     */
+    public Bucket buildHazelcast(HazelcastInstance hazelcastInstance, String mapName, Serializable key) {
+        checkAndConfigureHazelcastMap(hazelcastInstance, mapName);
+        return buildHazelcast(hazelcastInstance.<Object, GridBucketState>getMap(mapName), key);
     }
 
     /**
@@ -94,7 +230,94 @@ public final class BucketBuilder {
      */
     public Bucket buildIgnite(IgniteCache<Object, GridBucketState> cache, Object key) {
         BucketConfiguration configuration = createConfiguration();
-        return new GridBucket(configuration, new IgniteProxy(cache, key));
+        return leaseIfRequested(new GridBucket(configuration, coalesceIfRequested(new IgniteProxy(expireIfRequested(cache, configuration), key))));
+    }
+
+    /**
+     * Constructs an instance of {@link com.github.bucket4j.grid.GridBucket} which responsible to limit rate inside any JCache (JSR-107) provider
+     * which supports entry processors, for example Infinispan, Coherence or Caffeine.
+     *
+     * @param cache cache which will hold bucket.
+     *             Feel free to store inside single {@code cache} as mush buckets as you need.
+     * @param key  for storing bucket inside {@code cache}.
+     *             If you plan to store multiple buckets inside single {@code cache}, then each bucket should has own unique {@code key}.
+     *
+     * @see com.github.bucket4j.grid.jcache.JCacheProxy
+     */
+    public Bucket buildJCache(Cache<Object, GridBucketState> cache, Object key) {
+        BucketConfiguration configuration = createConfiguration();
+        return leaseIfRequested(new GridBucket(configuration, coalesceIfRequested(new JCacheProxy(cache, key))));
+    }
+
+    /**
+     * Constructs a table of buckets stored inside Hazelcast cluster, which checks many keys concurrently at cost of single round trip to the cluster.
+     *
+     * @param imap distributed map which will hold buckets inside cluster.
+     * @param <K> type of key
+     *
+     * @see com.github.bucket4j.grid.GridBucketTable
+     * @see com.github.bucket4j.grid.hazelcast.HazelcastBulkProxy
+     */
+    public <K extends Serializable> GridBucketTable<K> buildHazelcastTable(IMap<Object, GridBucketState> imap) {
+        BucketConfiguration configuration = createConfiguration();
+        return new GridBucketTable<>(configuration, new HazelcastBulkProxy<>(imap));
+    }
+
+    /**
+     * Constructs a table of buckets stored inside Hazelcast cluster, in-memory format of the map is validated before construction of table.
+     *
+     * @param hazelcastInstance member of cluster, configuration of map is not available on the clients.
+     * @param mapName name of distributed map which will hold buckets inside cluster.
+     * @param <K> type of key
+     *
+     * @see #buildHazelcast(HazelcastInstance, String, Serializable)
+     * @see #withGridEntryExpiration()
+     */
+    public <K extends Serializable> GridBucketTable<K> buildHazelcastTable(HazelcastInstance hazelcastInstance, String mapName) {
+        checkAndConfigureHazelcastMap(hazelcastInstance, mapName);
+        return buildHazelcastTable(hazelcastInstance.<Object, GridBucketState>getMap(mapName));
+    }
+
+    /**
+     * Constructs a table of buckets stored inside Apache Ignite(GridGain) cluster, which checks many keys per single call to the cluster.
+     *
+     * @param cache distributed cache which will hold buckets inside cluster.
+     * @param <K> type of key
+     *
+     * @see com.github.bucket4j.grid.GridBucketTable
+     * @see com.github.bucket4j.grid.ignite.IgniteBulkProxy
+     */
+    public <K> GridBucketTable<K> buildIgniteTable(IgniteCache<Object, GridBucketState> cache) {
+        BucketConfiguration configuration = createConfiguration();
+        return new GridBucketTable<>(configuration, new IgniteBulkProxy<>(expireIfRequested(cache, configuration)));
+    }
+
+    /**
+     * Constructs a table of buckets stored inside any JCache (JSR-107) provider which supports entry processors,
+     * which checks many keys per single {@code invokeAll}.
+     *
+     * @param cache cache which will hold buckets.
+     * @param <K> type of key
+     *
+     * @see com.github.bucket4j.grid.GridBucketTable
+     * @see com.github.bucket4j.grid.jcache.JCacheBulkProxy
+     */
+    public <K> GridBucketTable<K> buildJCacheTable(Cache<Object, GridBucketState> cache) {
+        BucketConfiguration configuration = createConfiguration();
+        return new GridBucketTable<>(configuration, new JCacheBulkProxy<>(cache));
+    }
+
+    /**
+     * Build table of distributed buckets for custom grid which is not supported out of the box.
+     *
+     * @param gridProxy delegate for accessing to your grid.
+     * @param <K> type of key
+     *
+     * @see com.github.bucket4j.grid.GridBulkProxy
+     */
+    public <K> GridBucketTable<K> buildCustomGridTable(GridBulkProxy<K> gridProxy) {
+        BucketConfiguration configuration = createConfiguration();
+        return new GridBucketTable<>(configuration, gridProxy);
     }
 
     /**
@@ -107,7 +330,7 @@ public final class BucketBuilder {
     public Bucket buildCustomGrid(GridProxy gridProxy) {
         HashMap map;
         BucketConfiguration configuration = createConfiguration();
-        return new GridBucket(configuration, gridProxy);
+        return leaseIfRequested(new GridBucket(configuration, coalesceIfRequested(gridProxy)));
     }
 
     /**
@@ -167,6 +390,7 @@ public final class BucketBuilder {
         final long bandwidthPeriod = timeMeter.toBandwidthPeriod(timeUnit, period);
         final BandwidthDefinition bandwidth = new BandwidthDefinition(maxCapacity, initialCapacity, bandwidthPeriod, true);
         bandwidths.add(bandwidth);
+        configuration = null;
         return this;
     }
 
@@ -194,6 +418,7 @@ public final class BucketBuilder {
         final long bandwidthPeriod = timeMeter.toBandwidthPeriod(timeUnit, period);
         final BandwidthDefinition bandwidth = new BandwidthDefinition(bandwidthAdjuster, initialCapacity, bandwidthPeriod, true);
         bandwidths.add(bandwidth);
+        configuration = null;
         return this;
     }
 
@@ -246,6 +471,7 @@ public final class BucketBuilder {
         final long bandwidthPeriod = timeMeter.toBandwidthPeriod(timeUnit, period);
         final BandwidthDefinition bandwidth = new BandwidthDefinition(maxCapacity, initialCapacity, bandwidthPeriod, false);
         bandwidths.add(bandwidth);
+        configuration = null;
         return this;
     }
 
@@ -267,6 +493,107 @@ public final class BucketBuilder {
         final long bandwidthPeriod = timeMeter.toBandwidthPeriod(timeUnit, period);
         final BandwidthDefinition bandwidth = new BandwidthDefinition(bandwidthAdjuster, initialCapacity, bandwidthPeriod, false);
         bandwidths.add(bandwidth);
+        configuration = null;
+        return this;
+    }
+
+    /**
+     * Instructs builder to construct local buckets which protect own state by exclusive lock instead of lock-free CAS loop.
+     * <p>
+     * Lock based synchronization is preferable when bucket has several bandwidths and is accessed by many threads concurrently,
+     * because contention does not lead to repeated recalculation of whole bucket state.
+     * This option affects only {@link #build()}.
+     *
+     * @param spinAttemptsBeforePark count of non-blocking attempts to acquire the lock before parking of thread, should not be negative.
+     *
+     * @see com.github.bucket4j.local.LockBasedBucket
+     */
+    public BucketBuilder withLockBasedSynchronization(int spinAttemptsBeforePark) {
+        if (spinAttemptsBeforePark < 0) {
+            throw negativeSpinAttempts(spinAttemptsBeforePark);
+        }
+        this.lockBasedSynchronization = true;
+        this.spinAttemptsBeforePark = spinAttemptsBeforePark;
+        return this;
+    }
+
+    /**
+     * Instructs builder to construct local buckets which protect own state by exclusive lock, thread is parked immediately when lock is busy.
+     *
+     * @see #withLockBasedSynchronization(int)
+     */
+    public BucketBuilder withLockBasedSynchronization() {
+        return withLockBasedSynchronization(0);
+    }
+
+    /**
+     * Instructs builder to construct grid buckets which lease chunks of tokens from the grid and serve consumption from the lease locally,
+     * so most of consumptions do not require remote call. Cluster-wide consumption can exceed configured rate by at most
+     * {@code tokensPerLease} tokens per node. This option affects {@link #buildHazelcast}, {@link #buildIgnite}, {@link #buildJCache} and {@link #buildCustomGrid}.
+     *
+     * @param tokensPerLease count of tokens requested from the grid by single lease, should be positive.
+     * @param leaseTime time during which leased tokens can be spent locally, unused tokens are returned to the grid after expiration, should be positive.
+     * @param timeUnit time unit of {@code leaseTime}
+     *
+     * @see com.github.bucket4j.grid.LeasedGridBucket
+     */
+    public BucketBuilder withTokenLease(long tokensPerLease, long leaseTime, TimeUnit timeUnit) {
+        if (tokensPerLease <= 0) {
+            throw nonPositiveTokensPerLease(tokensPerLease);
+        }
+        if (leaseTime <= 0) {
+            throw nonPositiveLeaseTime(leaseTime);
+        }
+        this.tokensPerLease = tokensPerLease;
+        this.leaseTime = timeMeter.toBandwidthPeriod(timeUnit, leaseTime);
+        return this;
+    }
+
+    /**
+     * Instructs builder to construct grid buckets which merge concurrent {@code tryConsume} calls of the same bucket instance
+     * into single grid command, so hot bucket shared by many threads of the node costs one round trip per batch of callers.
+     * This option affects {@link #buildHazelcast}, {@link #buildIgnite}, {@link #buildJCache} and {@link #buildCustomGrid}.
+     * <p>
+     * Coalescing is scoped to the bucket instance returned by the builder, not to the key of the grid:
+     * two bucket instances built for the same key do not coalesce with each other, so application should share single instance
+     * of hot bucket between threads instead of building bucket per request.
+     *
+     * @see com.github.bucket4j.grid.CoalescingGridProxy
+     */
+    public BucketBuilder withRequestCoalescing() {
+        this.requestCoalescing = true;
+        return this;
+    }
+
+    /**
+     * Instructs builder to construct Hazelcast buckets which replicate modifications to backups by replaying of command
+     * with the time of its execution on primary replica, instead of sending snapshot of whole bucket state after each modification.
+     * It reduces backup traffic and allocation, especially for buckets with many bandwidths,
+     * but backup relies on the order in which Hazelcast applies backup operations.
+     * This option affects only {@link #buildHazelcast}.
+     *
+     * @see com.github.bucket4j.grid.hazelcast.HazelcastReplayReplicant
+     */
+    public BucketBuilder withBackupByCommandReplay() {
+        this.backupByCommandReplay = true;
+        return this;
+    }
+
+    /**
+     * Instructs builder to construct grid buckets which expire from the grid when they were not modified during the time
+     * in which bucket becomes full again, so grid does not accumulate buckets for keys which are not used anymore.
+     * Expired bucket is initialized as full on the next access, so expiration is invisible for consumers.
+     * <p>
+     * This option affects {@link #buildIgnite} and {@link #buildIgniteTable}, which use expiry policy of the cache,
+     * and Hazelcast builders which accept {@link HazelcastInstance} and name of map, which configure time to live of the map
+     * via {@link HazelcastProxy#configureExpiration}. Hazelcast 3.x does not allow entry processors to change time to live of entry,
+     * so configuration of map is changed only on the member passed to builder and takes effect only when map was not created yet,
+     * map on other members should be configured same way, and time to live is rounded up to whole seconds.
+     *
+     * @see GridBucketExpiration
+     */
+    public BucketBuilder withGridEntryExpiration() {
+        this.gridEntryExpiration = true;
         return this;
     }
 
@@ -278,10 +605,18 @@ public final class BucketBuilder {
     }
 
     /**
+     * Configuration is created once and shared between all buckets constructed by this builder until builder will be modified,
+     * so thousands of buckets with similar limits do not duplicate configuration in memory.
+     *
      * @return configuration which used for bucket construction.
+     *
+     * @see com.github.bucket4j.grid.GridConfigurationRegistry
      */
     public BucketConfiguration createConfiguration() {
-        return new BucketConfiguration(this.bandwidths, timeMeter);
+        if (configuration == null) {
+            configuration = new BucketConfiguration(this.bandwidths, timeMeter);
+        }
+        return configuration;
     }
 
     @Override
@@ -289,9 +624,45 @@ public final class BucketBuilder {
         return "BucketBuilder{" +
                 "timeMeter=" + timeMeter +
                 ", bandwidths=" + bandwidths +
+                ", lockBasedSynchronization=" + lockBasedSynchronization +
+                ", spinAttemptsBeforePark=" + spinAttemptsBeforePark +
+                ", tokensPerLease=" + tokensPerLease +
+                ", leaseTime=" + leaseTime +
+                ", requestCoalescing=" + requestCoalescing +
+                ", backupByCommandReplay=" + backupByCommandReplay +
+                ", gridEntryExpiration=" + gridEntryExpiration +
                 '}';
     }
 
+    private GridProxy coalesceIfRequested(GridProxy gridProxy) {
+        return requestCoalescing ? new CoalescingGridProxy(gridProxy) : gridProxy;
+    }
+
+    private IgniteCache<Object, GridBucketState> expireIfRequested(IgniteCache<Object, GridBucketState> cache, BucketConfiguration configuration) {
+        if (!gridEntryExpiration) {
+            return cache;
+        }
+        Duration timeToLive = new Duration(TimeUnit.MILLISECONDS, GridBucketExpiration.getTimeToLiveMillis(configuration));
+        return cache.withExpiryPolicy(new ModifiedExpiryPolicy(timeToLive));
+    }
+
+    private void checkAndConfigureHazelcastMap(HazelcastInstance hazelcastInstance, String mapName) {
+        BucketConfiguration configuration = createConfiguration();
+        MapConfig mapConfig = hazelcastInstance.getConfig().getMapConfig(mapName);
+        HazelcastProxy.checkInMemoryFormat(mapConfig, configuration);
+        // several builders can share the map, so time to live is never shortened
+        if (gridEntryExpiration && mapConfig.getTimeToLiveSeconds() < GridBucketExpiration.getTimeToLiveSeconds(configuration)) {
+            HazelcastProxy.configureExpiration(mapConfig, configuration);
+        }
+    }
+
+    private Bucket leaseIfRequested(GridBucket gridBucket) {
+        if (tokensPerLease == 0) {
+            return gridBucket;
+        }
+        return new LeasedGridBucket(gridBucket, tokensPerLease, leaseTime);
+    }
+
     BandwidthDefinition getBandwidthDefinition(int index) {
         return bandwidths.get(index);
     }
@@ -70,6 +70,87 @@ public final class BucketExceptions {
         String msg = MessageFormat.format(pattern, first, second);
         return new IllegalArgumentException(msg);
     }
+
+    public static IllegalArgumentException nonPositiveStripeCount(int stripeCount) {
+        String pattern = "{0} is wrong value for count of stripes, because count of stripes should be positive";
+        String msg = MessageFormat.format(pattern, stripeCount);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException guaranteedBandwidthNotSupportedByStripedBucket() {
+        String msg = "Striped bucket does not support guaranteed bandwidth, because guarantee of single stripe can exceed limits of whole bucket";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException guaranteedBandwidthNotSupportedByBucketBatch() {
+        String msg = "Bucket batch does not support guaranteed bandwidth, because consumption allowed by guarantee can not be returned back";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException negativeSpinAttempts(int spinAttempts) {
+        String pattern = "{0} is wrong value for count of spin attempts, because count of spin attempts should not be negative";
+        String msg = MessageFormat.format(pattern, spinAttempts);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveMaxIdleTime(long maxIdleTime) {
+        String pattern = "{0} is wrong value for max idle time, because max idle time should be positive";
+        String msg = MessageFormat.format(pattern, maxIdleTime);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveMaxBuckets(int maxBuckets) {
+        String pattern = "{0} is wrong value for max count of buckets, because max count of buckets should be positive";
+        String msg = MessageFormat.format(pattern, maxBuckets);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveSegmentCount(int segmentCount) {
+        String pattern = "{0} is wrong value for count of segments, because count of segments should be positive";
+        String msg = MessageFormat.format(pattern, segmentCount);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException tooLargeSegment(long segmentSizeBytes, int segmentCount) {
+        String pattern = "Size of segment {0} bytes exceeds limit of direct buffer, count of segments {1} should be increased";
+        String msg = MessageFormat.format(pattern, segmentSizeBytes, segmentCount);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveTimeResolution(long resolution) {
+        String pattern = "Time resolution should be positive, {0} is wrong resolution";
+        String msg = MessageFormat.format(pattern, resolution);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveTokensPerLease(long tokensPerLease) {
+        String pattern = "Count of tokens per lease should be positive, {0} is wrong count";
+        String msg = MessageFormat.format(pattern, tokensPerLease);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveLeaseTime(long leaseTime) {
+        String pattern = "Lease time should be positive, {0} is wrong lease time";
+        String msg = MessageFormat.format(pattern, leaseTime);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nullConfigurationId() {
+        String msg = "Configuration id can not be null";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalStateException configurationIdAlreadyRegistered(String configurationId) {
+        String pattern = "Another configuration is already registered with id {0}";
+        String msg = MessageFormat.format(pattern, configurationId);
+        return new IllegalStateException(msg);
+    }
+
+    public static IllegalStateException configurationAlreadyRegisteredWithAnotherId(String configurationId, String registeredId) {
+        String pattern = "Configuration can not be registered with id {0}, because it is already registered with id {1}";
+        String msg = MessageFormat.format(pattern, configurationId, registeredId);
+        return new IllegalStateException(msg);
+    }
     // ------------------- end of construction time exceptions --------------------------------
 
     // ------------------- usage time exceptions  ---------------------------------------------
@@ -85,4 +166,46 @@ public final class BucketExceptions {
         return new IllegalArgumentException(msg);
     }
 
+    public static IllegalArgumentException nonPositiveTokensToAdd(long tokens) {
+        String pattern = "Unable to add {0} tokens, due to number of tokens to add should be positive";
+        String msg = MessageFormat.format(pattern, tokens);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nullScheduler() {
+        String msg = "Scheduler can not be null";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException tokensToConsumeExceedCapacity(long tokens) {
+        String pattern = "Unable to consume {0} tokens, due to number of tokens to consume is greater than capacity of bucket";
+        String msg = MessageFormat.format(pattern, tokens);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalStateException offHeapTableOverflow(int segmentSize) {
+        String pattern = "There is no free slot for new key, segment already holds {0} keys which were not refilled to initial capacity";
+        String msg = MessageFormat.format(pattern, segmentSize);
+        return new IllegalStateException(msg);
+    }
+
+    public static IllegalStateException unknownConfigurationId(String configurationId) {
+        String pattern = "Configuration with id {0} is not registered on this node";
+        String msg = MessageFormat.format(pattern, configurationId);
+        return new IllegalStateException(msg);
+    }
+
+    public static IllegalArgumentException unsupportedInMemoryFormat(String mapName, Object inMemoryFormat) {
+        String pattern = "In-memory format {1} of map {0} is not supported, only BINARY and OBJECT formats are supported";
+        String msg = MessageFormat.format(pattern, mapName, inMemoryFormat);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException unregisteredConfigurationForObjectFormat(String mapName) {
+        String pattern = "Map {0} stores buckets in OBJECT format, so configuration should be registered in GridConfigurationRegistry, " +
+                "otherwise each stored bucket holds own copy of configuration";
+        String msg = MessageFormat.format(pattern, mapName);
+        return new IllegalArgumentException(msg);
+    }
+
 }
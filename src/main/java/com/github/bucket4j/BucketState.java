@@ -89,6 +89,42 @@ public class BucketState implements Serializable {
         }
     }
 
+    /**
+     * Reserves tokens even if they are not available yet, so the caller needs to wait only once, exactly the returned time,
+     * instead of competing with other threads after each wake-up. Bandwidths go into debt which is paid off by subsequent refills.
+     *
+     * State should be refilled to {@code currentTime} before invocation.
+     *
+     * @param waitIfBusyTimeLimit maximum time to wait, or non-positive value if waiting is unlimited
+     *
+     * @return time which caller should wait before using reserved tokens, or {@link Long#MAX_VALUE} when tokens were not reserved
+     * because they can never be consumed or required waiting exceeds the limit.
+     */
+    public long reserveAndCalculateTimeToSleep(Bandwidth[] bandwidths, long currentTime, long tokensToConsume, long waitIfBusyTimeLimit) {
+        long timeToSleep = delayAfterWillBePossibleToConsume(bandwidths, currentTime, tokensToConsume);
+        if (timeToSleep == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        if (waitIfBusyTimeLimit > 0 && timeToSleep >= waitIfBusyTimeLimit) {
+            return Long.MAX_VALUE;
+        }
+        if (timeToSleep == 0) {
+            // nothing to wait, limited bandwidths should not go into debt when tokens are granted by guaranteed bandwidth
+            consume(bandwidths, tokensToConsume);
+            return 0;
+        }
+        for (Bandwidth bandwidth: bandwidths) {
+            bandwidth.reserve(this, tokensToConsume);
+        }
+        return timeToSleep;
+    }
+
+    public void addTokens(Bandwidth[] bandwidths, long tokensToAdd, long currentTime) {
+        for (Bandwidth bandwidth: bandwidths) {
+            bandwidth.addTokens(this, tokensToAdd, currentTime);
+        }
+    }
+
     public long delayAfterWillBePossibleToConsume(Bandwidth[] bandwidths, long currentTime, long tokensToConsume) {
         long delayAfterWillBePossibleToConsumeLimited = 0;
         long delayAfterWillBePossibleToConsumeGuaranteed = Long.MAX_VALUE;
@@ -111,7 +147,8 @@ public class BucketState implements Serializable {
 
     public void refill(Bandwidth[] bandwidths, long currentTime) {
         long previousRefillTime = state[0];
-        if (previousRefillTime == currentTime) {
+        if (previousRefillTime >= currentTime) {
+            // time meter went backwards, keep the latest refill time in order to not refill same interval twice
             return;
         }
         for (Bandwidth bandwidth: bandwidths) {
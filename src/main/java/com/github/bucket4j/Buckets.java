@@ -17,6 +17,8 @@
 
 package com.github.bucket4j;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Entry point for bucket builder.
  */
@@ -40,6 +42,20 @@ public  final class Buckets {
         return new BucketBuilder(TimeMeter.SYSTEM_MILLISECONDS);
     }
 
+    /**
+     * Creates instance of {@link com.github.bucket4j.BucketBuilder} which will create buckets with {@link com.github.bucket4j.CachedTimeMeter} as time meter.
+     * Cached meter avoids clock reading on each operation, in exchange time is observed with delay up to {@code resolution}.
+     *
+     * @param resolution interval between updates of cached time, should be positive.
+     * @param timeUnit unit of resolution
+     *
+     * @return builder which creates buckets with {@link com.github.bucket4j.CachedTimeMeter} of required resolution as time meter,
+     * ticker thread of the meter is shared with all buckets of the same resolution until {@link CachedTimeMeter#shutdown()}
+     */
+    public static BucketBuilder withCachedTimePrecision(long resolution, TimeUnit timeUnit) {
+        return new BucketBuilder(CachedTimeMeter.withResolution(resolution, timeUnit));
+    }
+
     /**
      * Creates instance of {@link com.github.bucket4j.BucketBuilder} which will create buckets with {@code customTimeMeter} as time meter.
      *
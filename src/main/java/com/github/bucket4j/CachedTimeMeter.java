@@ -0,0 +1,148 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j;
+
+import java.io.ObjectStreamException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.github.bucket4j.BucketExceptions.nonPositiveTimeResolution;
+
+/**
+ * The implementation of {@link TimeMeter} which reads time from volatile field instead of invocation of {@link System#nanoTime()},
+ * the field is updated by background daemon thread with configured resolution.
+ * <p>
+ * Time is measured in nanoseconds, same as {@link TimeMeter#SYSTEM_NANOTIME}, but it lags behind real time up to resolution.
+ * It does not break limitation in long run, because tokens are refilled according to observed time,
+ * but tokens become visible with delay up to resolution, so resolution should be much smaller than periods of bandwidths.
+ * <p>
+ * Meters are shared between all buckets with same resolution, so count of ticker threads is equal to count of distinct resolutions.
+ * Ticker threads live until {@link #shutdown()} is called, it should be done when library is unloaded without stopping of JVM,
+ * for example on undeploy of web application.
+ *
+ * @see Buckets#withCachedTimePrecision(long, TimeUnit)
+ */
+public final class CachedTimeMeter implements TimeMeter {
+
+    private static final ConcurrentMap<Long, CachedTimeMeter> METERS = new ConcurrentHashMap<>();
+
+    // written by ticker thread at exit, so meters which are still referenced after shutdown read the system clock directly
+    private static final long STOPPED = Long.MIN_VALUE;
+
+    private final long resolutionNanos;
+    private transient volatile long currentTime;
+    private transient volatile boolean stopped;
+    private final transient Thread ticker;
+
+    private CachedTimeMeter(long resolutionNanos) {
+        this.resolutionNanos = resolutionNanos;
+        this.currentTime = System.nanoTime();
+        this.ticker = new Thread(() -> {
+            while (!stopped) {
+                LockSupport.parkNanos(this.resolutionNanos);
+                currentTime = System.nanoTime();
+            }
+            currentTime = STOPPED;
+        }, "bucket4j-time-ticker-" + resolutionNanos + "ns");
+        this.ticker.setDaemon(true);
+    }
+
+    /**
+     * Returns meter with required resolution, ticker thread is started at first request of each distinct resolution.
+     *
+     * @param resolution interval between updates of time, should be positive.
+     * @param timeUnit unit of resolution
+     *
+     * @return meter with required resolution
+     */
+    public static CachedTimeMeter withResolution(long resolution, TimeUnit timeUnit) {
+        if (resolution <= 0) {
+            throw nonPositiveTimeResolution(resolution);
+        }
+        return getInstance(timeUnit.toNanos(resolution));
+    }
+
+    private static CachedTimeMeter getInstance(long resolutionNanos) {
+        CachedTimeMeter meter = METERS.get(resolutionNanos);
+        if (meter != null) {
+            return meter;
+        }
+        CachedTimeMeter newMeter = new CachedTimeMeter(resolutionNanos);
+        meter = METERS.putIfAbsent(resolutionNanos, newMeter);
+        if (meter != null) {
+            return meter;
+        }
+        newMeter.ticker.start();
+        return newMeter;
+    }
+
+    /**
+     * Stops ticker threads of all meters which were created so far.
+     * Buckets which still use stopped meters continue to work, but read {@link System#nanoTime()} on each operation,
+     * meters requested after shutdown start new ticker threads.
+     */
+    public static void shutdown() {
+        for (CachedTimeMeter meter : METERS.values()) {
+            if (METERS.remove(meter.resolutionNanos, meter)) {
+                meter.stopped = true;
+                LockSupport.unpark(meter.ticker);
+            }
+        }
+    }
+
+    public long getResolutionNanos() {
+        return resolutionNanos;
+    }
+
+    @Override
+    public long currentTime() {
+        long time = currentTime;
+        return time != STOPPED ? time : System.nanoTime();
+    }
+
+    @Override
+    public void sleep(long units) throws InterruptedException {
+        LockSupport.parkNanos(units);
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    @Override
+    public long toBandwidthPeriod(TimeUnit timeUnit, long period) {
+        return timeUnit.toNanos(period);
+    }
+
+    @Override
+    public long toNanos(long units) {
+        return units;
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+        // ticker thread is not serialized, so deserialized meter should be replaced by local one
+        return getInstance(resolutionNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "CachedTimeMeter{" +
+                "resolutionNanos=" + resolutionNanos +
+                '}';
+    }
+
+}
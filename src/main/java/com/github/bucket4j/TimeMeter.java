@@ -43,6 +43,19 @@ public interface TimeMeter extends Serializable {
 
     long toBandwidthPeriod(TimeUnit timeUnit, long period);
 
+    /**
+     * Converts amount of time units which are used by this meter to nanoseconds.
+     *
+     * Default implementation derives the ratio from {@link #toBandwidthPeriod(TimeUnit, long)}, meters with known resolution should override it.
+     *
+     * @param units amount of time in units of this meter
+     * @return amount of nanoseconds, or {@link Long#MAX_VALUE} in case of overflow
+     */
+    default long toNanos(long units) {
+        long unitsPerSecond = toBandwidthPeriod(TimeUnit.SECONDS, 1);
+        return (long) (units * ((double) TimeUnit.SECONDS.toNanos(1) / unitsPerSecond));
+    }
+
     /**
      * The implementation of {@link TimeMeter} which works arround {@link java.lang.System#nanoTime}
      */
@@ -65,6 +78,11 @@ public interface TimeMeter extends Serializable {
             return timeUnit.toNanos(period);
         }
 
+        @Override
+        public long toNanos(long units) {
+            return units;
+        }
+
         @Override
         public String toString() {
             return "SYSTEM_NANOTIME";
@@ -93,6 +111,11 @@ public interface TimeMeter extends Serializable {
             return timeUnit.toMillis(period);
         }
 
+        @Override
+        public long toNanos(long units) {
+            return TimeUnit.MILLISECONDS.toNanos(units);
+        }
+
         @Override
         public String toString() {
             return "SYSTEM_MILLISECONDS";
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.grid;
+
+import com.github.bucket4j.Bandwidth;
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.BucketState;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+public class AddTokensCommand implements GridCommand<Boolean>, Externalizable {
+
+    private long tokensToAdd;
+    private boolean bucketStateModified;
+
+    public AddTokensCommand() {
+    }
+
+    public AddTokensCommand(long tokensToAdd) {
+        this.tokensToAdd = tokensToAdd;
+    }
+
+    @Override
+    public Boolean execute(GridBucketState gridState, long currentTime) {
+        BucketConfiguration configuration = gridState.getBucketConfiguration();
+        BucketState state = gridState.getBucketState();
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        state.refill(bandwidths, currentTime);
+        state.addTokens(bandwidths, tokensToAdd, currentTime);
+        bucketStateModified = true;
+        return true;
+    }
+
+    @Override
+    public boolean isBucketStateModified() {
+        return bucketStateModified;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        writeTo(out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        readFrom(in);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(tokensToAdd);
+    }
+
+    void readFrom(DataInput in) throws IOException {
+        tokensToAdd = in.readLong();
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.grid;
+
+import com.github.bucket4j.Bandwidth;
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.BucketState;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Tries to consume tokens for many callers in order of arrival, result for each caller is independent from results of others.
+ */
+public class BatchTryConsumeCommand implements GridCommand<boolean[]>, Externalizable {
+
+    private long[] tokensToConsume;
+    private boolean bucketStateModified;
+
+    public BatchTryConsumeCommand() {
+    }
+
+    public BatchTryConsumeCommand(long[] tokensToConsume) {
+        this.tokensToConsume = tokensToConsume;
+    }
+
+    @Override
+    public boolean[] execute(GridBucketState gridState, long currentTime) {
+        BucketConfiguration configuration = gridState.getBucketConfiguration();
+        BucketState state = gridState.getBucketState();
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        state.refill(bandwidths, currentTime);
+        long availableToConsume = state.getAvailableTokens(bandwidths);
+        boolean[] results = new boolean[tokensToConsume.length];
+        for (int i = 0; i < tokensToConsume.length; i++) {
+            if (tokensToConsume[i] <= availableToConsume) {
+                state.consume(bandwidths, tokensToConsume[i]);
+                availableToConsume = state.getAvailableTokens(bandwidths);
+                bucketStateModified = true;
+                results[i] = true;
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public boolean isBucketStateModified() {
+        return bucketStateModified;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        writeTo(out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        readFrom(in);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(tokensToConsume.length);
+        for (long tokens : tokensToConsume) {
+            out.writeLong(tokens);
+        }
+    }
+
+    void readFrom(DataInput in) throws IOException {
+        tokensToConsume = new long[in.readInt()];
+        for (int i = 0; i < tokensToConsume.length; i++) {
+            tokensToConsume[i] = in.readLong();
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.grid;
+
+import com.github.bucket4j.BucketConfiguration;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Decorator of {@link GridProxy} which merges concurrent {@link TryConsumeCommand}s passed through this proxy into single grid command.
+ * State of coalescing belongs to the proxy instance, so commands of different proxies for the same key are never merged.
+ * <p>
+ * At most one command per proxy is in flight. Callers which arrive while a command is in flight are queued,
+ * when command completes the first queued caller executes single {@link BatchTryConsumeCommand} on behalf of all queued callers
+ * and hands results out to them. So hot bucket accessed by hundreds of threads costs one round trip per batch instead of one per thread,
+ * while a lone caller does not wait for anybody.
+ * Other commands and asynchronous calls are passed to the delegate as is.
+ */
+public class CoalescingGridProxy implements GridProxy {
+
+    private final GridProxy delegate;
+
+    private final Object monitor = new Object();
+    private boolean inFlight;
+    private List<Request> queued = new ArrayList<>();
+
+    public CoalescingGridProxy(GridProxy delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public <T extends Serializable> T execute(GridCommand<T> command) {
+        if (!(command instanceof TryConsumeCommand)) {
+            return delegate.execute(command);
+        }
+
+        Request request = new Request(((TryConsumeCommand) command).getTokensToConsume());
+        List<Request> batch;
+        synchronized (monitor) {
+            if (inFlight) {
+                queued.add(request);
+                batch = null;
+            } else {
+                inFlight = true;
+                batch = Collections.singletonList(request);
+            }
+        }
+        if (batch == null) {
+            batch = request.awaitResultOrTurn();
+        }
+        if (batch != null) {
+            executeBatch(batch);
+            handOver();
+        }
+        return (T) request.getResult();
+    }
+
+    @Override
+    public <T extends Serializable> CompletableFuture<T> executeAsync(GridCommand<T> command) {
+        return delegate.executeAsync(command);
+    }
+
+    @Override
+    public void setConfiguration(BucketConfiguration configuration) {
+        delegate.setConfiguration(configuration);
+    }
+
+    private void executeBatch(List<Request> batch) {
+        try {
+            if (batch.size() == 1) {
+                Request request = batch.get(0);
+                request.complete(delegate.execute(new TryConsumeCommand(request.tokensToConsume)));
+                return;
+            }
+            long[] tokensToConsume = new long[batch.size()];
+            for (int i = 0; i < tokensToConsume.length; i++) {
+                tokensToConsume[i] = batch.get(i).tokensToConsume;
+            }
+            boolean[] results = delegate.execute(new BatchTryConsumeCommand(tokensToConsume));
+            for (int i = 0; i < results.length; i++) {
+                batch.get(i).complete(results[i]);
+            }
+        } catch (RuntimeException | Error e) {
+            for (Request request : batch) {
+                request.fail(e);
+            }
+        }
+    }
+
+    private void handOver() {
+        List<Request> nextBatch;
+        synchronized (monitor) {
+            if (queued.isEmpty()) {
+                inFlight = false;
+                return;
+            }
+            nextBatch = queued;
+            queued = new ArrayList<>();
+        }
+        nextBatch.get(0).takeTurn(nextBatch);
+    }
+
+    private static final class Request {
+
+        private final long tokensToConsume;
+
+        private boolean completed;
+        private boolean result;
+        private Throwable error;
+        private List<Request> batchToExecute;
+
+        private Request(long tokensToConsume) {
+            this.tokensToConsume = tokensToConsume;
+        }
+
+        private synchronized void complete(boolean result) {
+            this.result = result;
+            this.completed = true;
+            notifyAll();
+        }
+
+        private synchronized void fail(Throwable error) {
+            this.error = error;
+            this.completed = true;
+            notifyAll();
+        }
+
+        private synchronized void takeTurn(List<Request> batch) {
+            this.batchToExecute = batch;
+            notifyAll();
+        }
+
+        /**
+         * @return batch which should be executed by the caller, or null when result is already provided by another caller
+         */
+        private synchronized List<Request> awaitResultOrTurn() {
+            boolean interrupted = false;
+            while (!completed && batchToExecute == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    // the caller can not be released before the grid answers, because its tokens can already be consumed
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return completed ? null : batchToExecute;
+        }
+
+        private synchronized Boolean getResult() {
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error instanceof Error) {
+                throw (Error) error;
+            }
+            return result;
+        }
+
+    }
+
+}
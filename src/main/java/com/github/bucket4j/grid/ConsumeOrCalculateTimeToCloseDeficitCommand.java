@@ -20,20 +20,29 @@ import com.github.bucket4j.Bandwidth;
 import com.github.bucket4j.BucketConfiguration;
 import com.github.bucket4j.BucketState;
 
-public class ConsumeOrCalculateTimeToCloseDeficitCommand implements GridCommand<Long> {
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+public class ConsumeOrCalculateTimeToCloseDeficitCommand implements GridCommand<Long>, Externalizable {
 
     private long tokensToConsume;
     private boolean bucketStateModified;
 
+    public ConsumeOrCalculateTimeToCloseDeficitCommand() {
+    }
+
     public ConsumeOrCalculateTimeToCloseDeficitCommand(long tokensToConsume) {
         this.tokensToConsume = tokensToConsume;
     }
 
     @Override
-    public Long execute(GridBucketState gridState) {
+    public Long execute(GridBucketState gridState, long currentTime) {
         BucketConfiguration configuration = gridState.getBucketConfiguration();
         BucketState state = gridState.getBucketState();
-        long currentTime = configuration.getTimeMeter().currentTime();
         Bandwidth[] bandwidths = configuration.getBandwidths();
         state.refill(bandwidths, currentTime);
         long timeToCloseDeficit = state.delayAfterWillBePossibleToConsume(bandwidths, currentTime, tokensToConsume);
@@ -49,4 +58,22 @@ public class ConsumeOrCalculateTimeToCloseDeficitCommand implements GridCommand<
         return bucketStateModified;
     }
 
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        writeTo(out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        readFrom(in);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(tokensToConsume);
+    }
+
+    void readFrom(DataInput in) throws IOException {
+        tokensToConsume = in.readLong();
+    }
+
 }
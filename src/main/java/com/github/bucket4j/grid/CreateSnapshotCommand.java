@@ -18,17 +18,37 @@ package com.github.bucket4j.grid;
 
 import com.github.bucket4j.BucketState;
 
-public class CreateSnapshotCommand implements GridCommand<long[]> {
+import java.io.Externalizable;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+public class CreateSnapshotCommand implements GridCommand<long[]>, Externalizable {
 
     @Override
-    public long[] execute(GridBucketState gridState) {
+    public long[] execute(GridBucketState gridState, long currentTime) {
+        // snapshot is taken as is, without refill
         BucketState state = gridState.getBucketState();
         return state.createSnapshot();
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Override
     public boolean isBucketStateModified() {
         return false;
     }
 
+    @Override
+    public void writeExternal(ObjectOutput out) {
+        // command has no state
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) {
+        // command has no state
+    }
+
 }
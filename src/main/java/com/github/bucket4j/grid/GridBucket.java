@@ -19,6 +19,9 @@ package com.github.bucket4j.grid;
 import com.github.bucket4j.AbstractBucket;
 import com.github.bucket4j.BucketConfiguration;
 import com.github.bucket4j.BucketState;
+import com.github.bucket4j.TimeMeter;
+
+import java.util.concurrent.CompletableFuture;
 
 public class GridBucket extends AbstractBucket {
 
@@ -27,8 +30,7 @@ public class GridBucket extends AbstractBucket {
     public GridBucket(BucketConfiguration configuration, GridProxy gridProxy) {
         super(configuration);
         this.gridProxy = gridProxy;
-        GridBucketState initialState = new GridBucketState(configuration, BucketState.createInitialState(configuration));
-        gridProxy.setInitialState(initialState);
+        gridProxy.setConfiguration(configuration);
     }
 
     @Override
@@ -41,33 +43,70 @@ public class GridBucket extends AbstractBucket {
         return gridProxy.execute(new TryConsumeCommand(tokensToConsume));
     }
 
+    @Override
+    protected CompletableFuture<Long> consumeAsMuchAsPossibleAsyncImpl(long limit) {
+        return gridProxy.executeAsync(new ConsumeAsMuchAsPossibleCommand(limit));
+    }
+
+    @Override
+    protected CompletableFuture<Boolean> tryConsumeAsyncImpl(long tokensToConsume) {
+        return gridProxy.executeAsync(new TryConsumeCommand(tokensToConsume));
+    }
+
+    @Override
+    protected void addTokensImpl(long tokensToAdd) {
+        gridProxy.execute(new AddTokensCommand(tokensToAdd));
+    }
+
+    @Override
+    protected CompletableFuture<Void> addTokensAsyncImpl(long tokensToAdd) {
+        return gridProxy.executeAsync(new AddTokensCommand(tokensToAdd)).thenApply(ignored -> null);
+    }
+
+    @Override
+    protected CompletableFuture<BucketState> createSnapshotAsyncImpl() {
+        return gridProxy.executeAsync(new CreateSnapshotCommand()).thenApply(BucketState::new);
+    }
+
+    @Override
+    protected CompletableFuture<Long> consumeOrCalculateTimeToCloseDeficitAsyncImpl(long tokensToConsume) {
+        return gridProxy.executeAsync(new ConsumeOrCalculateTimeToCloseDeficitCommand(tokensToConsume));
+    }
+
+    /**
+     * Tokens are reserved by single command, so waiting usually requires exactly one round trip to the grid.
+     * When debt would not be paid off within reservation horizon, thread waits until reservation becomes possible and repeats the command.
+     * Reserved tokens are returned to the bucket when waiting thread is interrupted.
+     *
+     * @see GridBucketExpiration#getReservationHorizon(BucketConfiguration)
+     */
     @Override
     protected boolean consumeOrAwaitImpl(long tokensToConsume, long waitIfBusyTimeLimit) throws InterruptedException {
-        final boolean isWaitingLimited = waitIfBusyTimeLimit > 0;
-        final ConsumeOrCalculateTimeToCloseDeficitCommand consumeCommand = new ConsumeOrCalculateTimeToCloseDeficitCommand(tokensToConsume);
-        final long methodStartTime = isWaitingLimited? configuration.getTimeMeter().currentTime(): 0;
+        TimeMeter timeMeter = configuration.getTimeMeter();
+        boolean isWaitingLimited = waitIfBusyTimeLimit > 0;
+        final long methodStartTime = isWaitingLimited ? timeMeter.currentTime() : 0;
+        long remainingWaitLimit = waitIfBusyTimeLimit;
 
         while (true) {
-            long timeToCloseDeficit = gridProxy.execute(consumeCommand);
-            if (timeToCloseDeficit == 0) {
-                return true;
-            }
-            if (timeToCloseDeficit == Long.MAX_VALUE) {
+            long timeToSleep = gridProxy.execute(new ReserveAndCalculateTimeToSleepCommand(tokensToConsume, remainingWaitLimit));
+            if (timeToSleep == Long.MAX_VALUE) {
                 return false;
             }
-
-            if (isWaitingLimited) {
-                long currentTime = configuration.getTimeMeter().currentTime();
-                long methodDuration = currentTime - methodStartTime;
-                if (methodDuration >= waitIfBusyTimeLimit) {
-                    return false;
+            // deadline is counted from the moment of response, so clock skew between client and grid can only prolong waiting
+            long currentTime = timeMeter.currentTime();
+            if (timeToSleep >= 0) {
+                if (timeToSleep > 0) {
+                    sleepUntilReservedTokensRefilled(tokensToConsume, currentTime, timeToSleep);
                 }
-                long sleepingTimeLimit = waitIfBusyTimeLimit - methodDuration;
-                if (timeToCloseDeficit >= sleepingTimeLimit) {
+                return true;
+            }
+            sleepUntilReservedTokensRefilled(currentTime, -timeToSleep);
+            if (isWaitingLimited) {
+                remainingWaitLimit = waitIfBusyTimeLimit - (timeMeter.currentTime() - methodStartTime);
+                if (remainingWaitLimit <= 0) {
                     return false;
                 }
             }
-            configuration.getTimeMeter().sleep(timeToCloseDeficit);
         }
     }
 
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.grid;
+
+import com.github.bucket4j.Bandwidth;
+import com.github.bucket4j.BucketConfiguration;
+
+/**
+ * Calculates time to live of grid entries which hold buckets.
+ * <p>
+ * Each bandwidth refills its whole capacity during own period, so bucket which was not modified during the longest period
+ * is full again and is equivalent to absent bucket, which is initialized as full on the next access.
+ * Waiting consumers of grid buckets reserve tokens only when reserved tokens are refilled within the {@link #getReservationHorizon reservation horizon},
+ * which is equal to the longest period, so the debt is paid off during this horizon and bucket becomes full after another longest period.
+ * So entry can expire after two longest periods since last modification, and the grid does not accumulate buckets of keys which are not used anymore.
+ */
+public final class GridBucketExpiration {
+
+    private GridBucketExpiration() {
+    }
+
+    /**
+     * @return maximum time in units of time meter, after which tokens reserved by waiting consumer of grid bucket should be refilled
+     */
+    public static long getReservationHorizon(BucketConfiguration configuration) {
+        long maxPeriod = 0;
+        for (Bandwidth bandwidth : configuration.getBandwidths()) {
+            maxPeriod = Math.max(maxPeriod, bandwidth.getPeriod());
+        }
+        return maxPeriod;
+    }
+
+    /**
+     * @return time since last modification after which bucket with specified configuration is full again, in nanoseconds
+     */
+    public static long getTimeToLiveNanos(BucketConfiguration configuration) {
+        long horizonNanos = configuration.getTimeMeter().toNanos(getReservationHorizon(configuration));
+        // debt is paid off during the horizon, then bucket is refilled during the longest period
+        return horizonNanos > Long.MAX_VALUE / 2 ? Long.MAX_VALUE : horizonNanos * 2;
+    }
+
+    /**
+     * @return time to live rounded up to whole milliseconds
+     */
+    public static long getTimeToLiveMillis(BucketConfiguration configuration) {
+        return divideRoundingUp(getTimeToLiveNanos(configuration), 1_000_000L);
+    }
+
+    /**
+     * @return time to live rounded up to whole seconds
+     */
+    public static long getTimeToLiveSeconds(BucketConfiguration configuration) {
+        return divideRoundingUp(getTimeToLiveNanos(configuration), 1_000_000_000L);
+    }
+
+    private static long divideRoundingUp(long value, long divider) {
+        return value / divider + (value % divider == 0 ? 0 : 1);
+    }
+
+}
@@ -16,26 +16,72 @@
 
 package com.github.bucket4j.grid;
 
+import com.github.bucket4j.Bandwidth;
 import com.github.bucket4j.BucketConfiguration;
 import com.github.bucket4j.BucketState;
 
-import java.io.Serializable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 
-public class GridBucketState implements Serializable {
+/**
+ * State of bucket stored inside grid.
+ * <p>
+ * When configuration of bucket is registered in {@link GridConfigurationRegistry} then only id of configuration is serialized,
+ * and configuration is resolved from registry of the node on which state is deserialized.
+ *
+ * @see GridSerialization
+ */
+public class GridBucketState implements Externalizable {
 
-    private final BucketConfiguration bucketConfiguration;
-    private final BucketState bucketState;
+    private BucketConfiguration bucketConfiguration;
+    private String configurationId;
+    private BucketState bucketState;
 
     public GridBucketState() {
         bucketConfiguration = null;
+        configurationId = null;
         bucketState = null;
     }
 
     public GridBucketState(BucketConfiguration bucketConfiguration, BucketState bucketState) {
         this.bucketConfiguration = bucketConfiguration;
+        this.configurationId = bucketConfiguration == null ? null : GridConfigurationRegistry.getId(bucketConfiguration);
         this.bucketState = bucketState;
     }
 
+    /**
+     * Creates state of bucket which is absent in the grid, such bucket was not accessed yet, so it is full.
+     */
+    public static GridBucketState createInitialState(BucketConfiguration configuration) {
+        return new GridBucketState(configuration, BucketState.createInitialState(configuration));
+    }
+
+    /**
+     * Checks that initial state of bucket is full, such state does not depend on the moment of creation,
+     * so absent bucket which was initialized but not modified by command does not need to be stored in the grid.
+     * Otherwise bucket would be recreated by each command and never refilled.
+     */
+    public static boolean isInitialStateFull(BucketConfiguration configuration) {
+        long currentTime = configuration.getTimeMeter().currentTime();
+        for (Bandwidth bandwidth : configuration.getBandwidths()) {
+            if (bandwidth.getInitialCapacity() < bandwidth.getMaxCapacity(currentTime)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code state} itself, or initial state created by {@code configuration} when bucket is absent in the grid
+     */
+    public static GridBucketState stateOrInitial(GridBucketState state, BucketConfiguration configuration) {
+        return state != null ? state : createInitialState(configuration);
+    }
+
     public BucketConfiguration getBucketConfiguration() {
         return bucketConfiguration;
     }
@@ -44,4 +90,40 @@ public class GridBucketState implements Serializable {
         return bucketState;
     }
 
+    public String getConfigurationId() {
+        return configurationId;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        writeTo(out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        readFrom(in);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        if (configurationId != null) {
+            out.writeBoolean(true);
+            out.writeUTF(configurationId);
+        } else {
+            out.writeBoolean(false);
+            GridSerialization.writeConfiguration(out, bucketConfiguration);
+        }
+        GridSerialization.writeBucketState(out, bucketState);
+    }
+
+    void readFrom(DataInput in) throws IOException {
+        if (in.readBoolean()) {
+            configurationId = in.readUTF();
+            bucketConfiguration = GridConfigurationRegistry.resolve(configurationId);
+        } else {
+            configurationId = null;
+            bucketConfiguration = GridSerialization.readConfiguration(in);
+        }
+        bucketState = GridSerialization.readBucketState(in);
+    }
+
 }
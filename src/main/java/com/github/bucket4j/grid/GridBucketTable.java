@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.grid;
+
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.BucketState;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.github.bucket4j.BucketExceptions.nonPositiveTokensToAdd;
+import static com.github.bucket4j.BucketExceptions.nonPositiveTokensToConsume;
+
+/**
+ * Table of grid buckets with similar configuration identified by keys, all buckets are stored inside single distributed map.
+ * <p>
+ * Unlike {@link GridBucket}, table does not hold any object per key and checks many keys per single call to the grid,
+ * so consumption from thousands of buckets costs one round trip per member which owns the keys instead of one round trip per key.
+ * Bucket is initialized inside the grid on first access to its key.
+ * <p>
+ * Table is thread safe and is intended to be created once per distributed map and configuration, so it also can replace
+ * construction of {@link GridBucket} per key per request, single-key methods cost one call to the grid and no per-key objects on the client:
+ * <pre>
+ * GridBucketTable&lt;String&gt; limits = builder.buildHazelcastTable(imap);
+ * ...
+ * if (!limits.tryConsume(userId, 1)) {
+ *     // reject request
+ * }
+ * </pre>
+ *
+ * @param <K> type of key
+ */
+public class GridBucketTable<K> {
+
+    private final BucketConfiguration configuration;
+    private final GridBulkProxy<K> gridProxy;
+
+    public GridBucketTable(BucketConfiguration configuration, GridBulkProxy<K> gridProxy) {
+        this.configuration = configuration;
+        this.gridProxy = gridProxy;
+    }
+
+    /**
+     * Tries to consume specified count of tokens from each bucket.
+     * Consumption from each bucket is independent, so rejection by one bucket does not affect others.
+     *
+     * @param tokensByKey count of tokens to consume by keys of buckets, each count should be positive.
+     *
+     * @return by each key {@code true} if tokens were consumed from corresponding bucket
+     */
+    public Map<K, Boolean> tryConsume(Map<K, Long> tokensByKey) {
+        if (tokensByKey.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<K, TryConsumeCommand> commands = new HashMap<>();
+        for (Map.Entry<K, Long> entry : tokensByKey.entrySet()) {
+            long tokensToConsume = entry.getValue();
+            if (tokensToConsume <= 0) {
+                throw nonPositiveTokensToConsume(tokensToConsume);
+            }
+            commands.put(entry.getKey(), new TryConsumeCommand(tokensToConsume));
+        }
+        return gridProxy.executeAll(configuration, commands);
+    }
+
+    /**
+     * Tries to consume specified count of tokens from the bucket stored by key.
+     *
+     * @return {@code true} if tokens were consumed
+     */
+    public boolean tryConsume(K key, long tokensToConsume) {
+        if (tokensToConsume <= 0) {
+            throw nonPositiveTokensToConsume(tokensToConsume);
+        }
+        return gridProxy.execute(key, configuration, new TryConsumeCommand(tokensToConsume));
+    }
+
+    public boolean tryConsumeSingleToken(K key) {
+        return gridProxy.execute(key, configuration, new TryConsumeCommand(1));
+    }
+
+    /**
+     * Consumes as much tokens from the bucket stored by key as available, but not more than {@code limit}.
+     *
+     * @return number of consumed tokens
+     */
+    public long consumeAsMuchAsPossible(K key, long limit) {
+        if (limit <= 0) {
+            throw nonPositiveTokensToConsume(limit);
+        }
+        return gridProxy.execute(key, configuration, new ConsumeAsMuchAsPossibleCommand(limit));
+    }
+
+    public long consumeAsMuchAsPossible(K key) {
+        return gridProxy.execute(key, configuration, new ConsumeAsMuchAsPossibleCommand(Long.MAX_VALUE));
+    }
+
+    public void addTokens(K key, long tokensToAdd) {
+        if (tokensToAdd <= 0) {
+            throw nonPositiveTokensToAdd(tokensToAdd);
+        }
+        gridProxy.execute(key, configuration, new AddTokensCommand(tokensToAdd));
+    }
+
+    /**
+     * @return snapshot of the bucket stored by key, absent bucket is reported as full and is not created in the grid
+     */
+    public BucketState createSnapshot(K key) {
+        long[] snapshot = gridProxy.execute(key, configuration, new CreateSnapshotCommand());
+        return new BucketState(snapshot);
+    }
+
+    public BucketConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    public String toString() {
+        return "GridBucketTable{" +
+                "configuration=" + configuration +
+                '}';
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.grid;
+
+import com.github.bucket4j.BucketConfiguration;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Delegate for accessing to many buckets stored inside single distributed map, which allows to execute commands
+ * against many keys per single call to the grid.
+ *
+ * @param <K> type of key
+ */
+public interface GridBulkProxy<K> {
+
+    /**
+     * Executes each command against the bucket stored by corresponding key.
+     * Buckets which are absent in the grid are initialized by {@code configuration} in scope of the same call.
+     *
+     * @param configuration configuration of buckets
+     * @param commands commands to execute, command instance should not be shared between keys
+     * @param <T> type of command result
+     *
+     * @return results of commands by keys
+     */
+    <T extends Serializable> Map<K, T> executeAll(BucketConfiguration configuration, Map<K, ? extends GridCommand<T>> commands);
+
+    /**
+     * Executes command against the bucket stored by specified key.
+     * Bucket which is absent in the grid is initialized by {@code configuration} in scope of the same call,
+     * {@link GridCommand#isReadOnly() read-only} commands do not initialize absent bucket.
+     *
+     * @param key key of bucket
+     * @param configuration configuration of bucket
+     * @param command command to execute
+     * @param <T> type of command result
+     *
+     * @return result of command
+     */
+    <T extends Serializable> T execute(K key, BucketConfiguration configuration, GridCommand<T> command);
+
+}
@@ -20,7 +20,27 @@ import java.io.Serializable;
 
 public interface GridCommand<T extends Serializable> extends Serializable {
 
-    T execute(GridBucketState state);
+    /**
+     * Executes command at current time of the time meter from configuration of bucket.
+     */
+    default T execute(GridBucketState state) {
+        return execute(state, state.getBucketConfiguration().getTimeMeter().currentTime());
+    }
+
+    /**
+     * Executes command as if current time is equal to {@code currentTime}.
+     * Command produces exactly the same state when it is applied to the same state with the same time,
+     * so commands can be replayed on backup replicas with the time of original execution instead of copying of whole state.
+     */
+    T execute(GridBucketState state, long currentTime);
+
+    /**
+     * @return true if command never modifies bucket state, such commands can be executed against a copy of state obtained by plain read,
+     * without exclusive entry processing on the partition owner and without replication to backups
+     */
+    default boolean isReadOnly() {
+        return false;
+    }
 
     boolean isBucketStateModified();
 
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.grid;
+
+import com.github.bucket4j.BucketConfiguration;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.github.bucket4j.BucketExceptions.configurationAlreadyRegisteredWithAnotherId;
+import static com.github.bucket4j.BucketExceptions.configurationIdAlreadyRegistered;
+import static com.github.bucket4j.BucketExceptions.nullConfigurationId;
+import static com.github.bucket4j.BucketExceptions.unknownConfigurationId;
+
+/**
+ * Registry of configurations shared by many grid buckets.
+ * <p>
+ * When configuration is registered, {@link GridBucketState} of each bucket constructed with this configuration
+ * is serialized with id of configuration instead of configuration itself.
+ * Configuration should be registered with the same id on each node of the grid before first access to the buckets,
+ * because state of the bucket can be deserialized on any node which holds primary or backup copy of the state.
+ *
+ * <pre>
+ * BucketBuilder builder = Buckets.withMillisTimePrecision().withLimitedBandwidth(100, TimeUnit.MINUTES, 1);
+ * GridConfigurationRegistry.register("api-limits", builder.createConfiguration());
+ * Bucket bucket = builder.buildHazelcast(map, apiKey);
+ * </pre>
+ */
+public final class GridConfigurationRegistry {
+
+    private static final ConcurrentHashMap<String, BucketConfiguration> configurationsById = new ConcurrentHashMap<>();
+    // copy on write, because ids are looked up on each serialization of state while registration is rare
+    private static volatile Map<BucketConfiguration, String> idsByConfiguration = new IdentityHashMap<>();
+
+    private GridConfigurationRegistry() {
+    }
+
+    /**
+     * Registers configuration with specified id. Registration of the same configuration with the same id several times is allowed,
+     * but configuration can not be registered with several ids, because states of buckets are serialized with single id of configuration.
+     *
+     * @param configurationId id of configuration which should be unique and stable across all nodes of the grid
+     * @param configuration configuration to register
+     *
+     * @throws IllegalStateException if another configuration is already registered with same id, or configuration is already registered with another id
+     */
+    public static synchronized void register(String configurationId, BucketConfiguration configuration) {
+        if (configurationId == null) {
+            throw nullConfigurationId();
+        }
+        String registeredId = idsByConfiguration.get(configuration);
+        if (registeredId != null && !registeredId.equals(configurationId)) {
+            throw configurationAlreadyRegisteredWithAnotherId(configurationId, registeredId);
+        }
+        BucketConfiguration previous = configurationsById.putIfAbsent(configurationId, configuration);
+        if (previous != null && previous != configuration) {
+            throw configurationIdAlreadyRegistered(configurationId);
+        }
+        Map<BucketConfiguration, String> newIdsByConfiguration = new IdentityHashMap<>(idsByConfiguration);
+        newIdsByConfiguration.put(configuration, configurationId);
+        idsByConfiguration = newIdsByConfiguration;
+    }
+
+    /**
+     * Removes configuration with specified id from the registry, buckets which reference this configuration can not be deserialized anymore.
+     */
+    public static synchronized void unregister(String configurationId) {
+        BucketConfiguration configuration = configurationsById.remove(configurationId);
+        if (configuration != null) {
+            Map<BucketConfiguration, String> newIdsByConfiguration = new IdentityHashMap<>(idsByConfiguration);
+            newIdsByConfiguration.remove(configuration);
+            idsByConfiguration = newIdsByConfiguration;
+        }
+    }
+
+    /**
+     * @return configuration registered with specified id
+     *
+     * @throws IllegalStateException if there is no configuration with specified id
+     */
+    public static BucketConfiguration resolve(String configurationId) {
+        BucketConfiguration configuration = configurationsById.get(configurationId);
+        if (configuration == null) {
+            throw unknownConfigurationId(configurationId);
+        }
+        return configuration;
+    }
+
+    /**
+     * @return id of configuration or {@code null} if configuration was not registered
+     */
+    public static String getId(BucketConfiguration configuration) {
+        return idsByConfiguration.get(configuration);
+    }
+
+}
@@ -16,12 +16,42 @@
 
 package com.github.bucket4j.grid;
 
+import com.github.bucket4j.BucketConfiguration;
+
 import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
 
 public interface GridProxy {
 
     <T extends Serializable> T execute(GridCommand<T> command);
 
-    void setInitialState(GridBucketState initialState);
+    /**
+     * Executes the command without blocking the calling thread.
+     *
+     * Default implementation executes the command synchronously and returns already completed future,
+     * proxies for grids which provide asynchronous entry processing should override it.
+     *
+     * @param command command to execute
+     * @param <T> type of command result
+     *
+     * @return future which will be completed by result of command
+     */
+    default <T extends Serializable> CompletableFuture<T> executeAsync(GridCommand<T> command) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            future.complete(execute(command));
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+        return future;
+    }
+
+    /**
+     * Provides configuration of the bucket. Proxy is free to store initial state in the grid immediately,
+     * or to initialize absent bucket in scope of the first command execution.
+     *
+     * @param configuration configuration of bucket
+     */
+    void setConfiguration(BucketConfiguration configuration);
 
 }
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.grid;
+
+import com.github.bucket4j.Bandwidth;
+import com.github.bucket4j.BandwidthAdjuster;
+import com.github.bucket4j.BandwidthDefinition;
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.BucketState;
+import com.github.bucket4j.CachedTimeMeter;
+import com.github.bucket4j.TimeMeter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compact binary format of grid types which does not depend from any particular grid.
+ * <p>
+ * Built-in commands, bucket state and configurations with standard time meters and immutable capacities
+ * are written as plain primitives without any class descriptors. Custom commands, time meters and bandwidth adjusters
+ * are written with help of java serialization.
+ */
+public final class GridSerialization {
+
+    private static final byte CUSTOM = 0;
+
+    private static final byte TRY_CONSUME_COMMAND = 1;
+    private static final byte CONSUME_AS_MUCH_AS_POSSIBLE_COMMAND = 2;
+    private static final byte CONSUME_OR_CALCULATE_TIME_TO_CLOSE_DEFICIT_COMMAND = 3;
+    private static final byte CREATE_SNAPSHOT_COMMAND = 4;
+    private static final byte RESERVE_AND_CALCULATE_TIME_TO_SLEEP_COMMAND = 5;
+    private static final byte ADD_TOKENS_COMMAND = 6;
+    private static final byte BATCH_TRY_CONSUME_COMMAND = 7;
+
+    private static final byte SYSTEM_NANOTIME = 1;
+    private static final byte SYSTEM_MILLISECONDS = 2;
+    private static final byte CACHED = 3;
+
+    private static final byte IMMUTABLE_CAPACITY = 1;
+
+    private GridSerialization() {
+    }
+
+    public static void writeCommand(DataOutput out, GridCommand<?> command) throws IOException {
+        if (command instanceof TryConsumeCommand) {
+            out.writeByte(TRY_CONSUME_COMMAND);
+            ((TryConsumeCommand) command).writeTo(out);
+        } else if (command instanceof ConsumeAsMuchAsPossibleCommand) {
+            out.writeByte(CONSUME_AS_MUCH_AS_POSSIBLE_COMMAND);
+            ((ConsumeAsMuchAsPossibleCommand) command).writeTo(out);
+        } else if (command instanceof ConsumeOrCalculateTimeToCloseDeficitCommand) {
+            out.writeByte(CONSUME_OR_CALCULATE_TIME_TO_CLOSE_DEFICIT_COMMAND);
+            ((ConsumeOrCalculateTimeToCloseDeficitCommand) command).writeTo(out);
+        } else if (command instanceof CreateSnapshotCommand) {
+            out.writeByte(CREATE_SNAPSHOT_COMMAND);
+        } else if (command instanceof ReserveAndCalculateTimeToSleepCommand) {
+            out.writeByte(RESERVE_AND_CALCULATE_TIME_TO_SLEEP_COMMAND);
+            ((ReserveAndCalculateTimeToSleepCommand) command).writeTo(out);
+        } else if (command instanceof AddTokensCommand) {
+            out.writeByte(ADD_TOKENS_COMMAND);
+            ((AddTokensCommand) command).writeTo(out);
+        } else if (command instanceof BatchTryConsumeCommand) {
+            out.writeByte(BATCH_TRY_CONSUME_COMMAND);
+            ((BatchTryConsumeCommand) command).writeTo(out);
+        } else {
+            out.writeByte(CUSTOM);
+            writeSerializable(out, command);
+        }
+    }
+
+    public static GridCommand<?> readCommand(DataInput in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TRY_CONSUME_COMMAND:
+                TryConsumeCommand tryConsumeCommand = new TryConsumeCommand();
+                tryConsumeCommand.readFrom(in);
+                return tryConsumeCommand;
+            case CONSUME_AS_MUCH_AS_POSSIBLE_COMMAND:
+                ConsumeAsMuchAsPossibleCommand consumeAsMuchAsPossibleCommand = new ConsumeAsMuchAsPossibleCommand();
+                consumeAsMuchAsPossibleCommand.readFrom(in);
+                return consumeAsMuchAsPossibleCommand;
+            case CONSUME_OR_CALCULATE_TIME_TO_CLOSE_DEFICIT_COMMAND:
+                ConsumeOrCalculateTimeToCloseDeficitCommand consumeOrCalculateCommand = new ConsumeOrCalculateTimeToCloseDeficitCommand();
+                consumeOrCalculateCommand.readFrom(in);
+                return consumeOrCalculateCommand;
+            case CREATE_SNAPSHOT_COMMAND:
+                return new CreateSnapshotCommand();
+            case RESERVE_AND_CALCULATE_TIME_TO_SLEEP_COMMAND:
+                ReserveAndCalculateTimeToSleepCommand reserveCommand = new ReserveAndCalculateTimeToSleepCommand();
+                reserveCommand.readFrom(in);
+                return reserveCommand;
+            case ADD_TOKENS_COMMAND:
+                AddTokensCommand addTokensCommand = new AddTokensCommand();
+                addTokensCommand.readFrom(in);
+                return addTokensCommand;
+            case BATCH_TRY_CONSUME_COMMAND:
+                BatchTryConsumeCommand batchTryConsumeCommand = new BatchTryConsumeCommand();
+                batchTryConsumeCommand.readFrom(in);
+                return batchTryConsumeCommand;
+            case CUSTOM:
+                return (GridCommand<?>) readSerializable(in);
+            default:
+                throw new InvalidObjectException("Unknown type of command " + type);
+        }
+    }
+
+    public static void writeGridBucketState(DataOutput out, GridBucketState state) throws IOException {
+        state.writeTo(out);
+    }
+
+    public static GridBucketState readGridBucketState(DataInput in) throws IOException {
+        GridBucketState state = new GridBucketState();
+        state.readFrom(in);
+        return state;
+    }
+
+    public static void writeBucketState(DataOutput out, BucketState state) throws IOException {
+        writeSnapshot(out, state.createSnapshot());
+    }
+
+    public static BucketState readBucketState(DataInput in) throws IOException {
+        return new BucketState(readSnapshot(in));
+    }
+
+    public static void writeSnapshot(DataOutput out, long[] snapshot) throws IOException {
+        out.writeInt(snapshot.length);
+        for (long value : snapshot) {
+            out.writeLong(value);
+        }
+    }
+
+    public static long[] readSnapshot(DataInput in) throws IOException {
+        long[] snapshot = new long[in.readInt()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = in.readLong();
+        }
+        return snapshot;
+    }
+
+    public static void writeConfiguration(DataOutput out, BucketConfiguration configuration) throws IOException {
+        TimeMeter timeMeter = configuration.getTimeMeter();
+        if (timeMeter == TimeMeter.SYSTEM_NANOTIME) {
+            out.writeByte(SYSTEM_NANOTIME);
+        } else if (timeMeter == TimeMeter.SYSTEM_MILLISECONDS) {
+            out.writeByte(SYSTEM_MILLISECONDS);
+        } else if (timeMeter instanceof CachedTimeMeter) {
+            out.writeByte(CACHED);
+            out.writeLong(((CachedTimeMeter) timeMeter).getResolutionNanos());
+        } else {
+            out.writeByte(CUSTOM);
+            writeSerializable(out, timeMeter);
+        }
+
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        out.writeInt(bandwidths.length);
+        for (Bandwidth bandwidth : bandwidths) {
+            out.writeBoolean(bandwidth.isGuaranteed());
+            out.writeLong(bandwidth.getInitialCapacity());
+            out.writeLong(bandwidth.getPeriod());
+            BandwidthAdjuster adjuster = bandwidth.getAdjuster();
+            if (adjuster.getClass() == BandwidthAdjuster.ImmutableCapacity.class) {
+                out.writeByte(IMMUTABLE_CAPACITY);
+                out.writeLong(((BandwidthAdjuster.ImmutableCapacity) adjuster).getValue());
+            } else {
+                out.writeByte(CUSTOM);
+                writeSerializable(out, adjuster);
+            }
+        }
+    }
+
+    /**
+     * Writes identifier of configuration when configuration is registered in {@link GridConfigurationRegistry},
+     * otherwise writes configuration itself.
+     */
+    public static void writeConfigurationReference(DataOutput out, BucketConfiguration configuration) throws IOException {
+        String configurationId = GridConfigurationRegistry.getId(configuration);
+        if (configurationId != null) {
+            out.writeBoolean(true);
+            out.writeUTF(configurationId);
+        } else {
+            out.writeBoolean(false);
+            writeConfiguration(out, configuration);
+        }
+    }
+
+    public static BucketConfiguration readConfigurationReference(DataInput in) throws IOException {
+        if (in.readBoolean()) {
+            return GridConfigurationRegistry.resolve(in.readUTF());
+        } else {
+            return readConfiguration(in);
+        }
+    }
+
+    public static BucketConfiguration readConfiguration(DataInput in) throws IOException {
+        TimeMeter timeMeter;
+        byte timeMeterType = in.readByte();
+        if (timeMeterType == SYSTEM_NANOTIME) {
+            timeMeter = TimeMeter.SYSTEM_NANOTIME;
+        } else if (timeMeterType == SYSTEM_MILLISECONDS) {
+            timeMeter = TimeMeter.SYSTEM_MILLISECONDS;
+        } else if (timeMeterType == CACHED) {
+            timeMeter = CachedTimeMeter.withResolution(in.readLong(), TimeUnit.NANOSECONDS);
+        } else {
+            timeMeter = (TimeMeter) readSerializable(in);
+        }
+
+        int bandwidthCount = in.readInt();
+        List<BandwidthDefinition> definitions = new ArrayList<>(bandwidthCount);
+        for (int i = 0; i < bandwidthCount; i++) {
+            boolean guaranteed = in.readBoolean();
+            long initialCapacity = in.readLong();
+            long period = in.readLong();
+            BandwidthAdjuster adjuster;
+            if (in.readByte() == IMMUTABLE_CAPACITY) {
+                adjuster = new BandwidthAdjuster.ImmutableCapacity(in.readLong());
+            } else {
+                adjuster = (BandwidthAdjuster) readSerializable(in);
+            }
+            // adjuster is passed as is, in order to reproduce bandwidths exactly as they were before serialization
+            definitions.add(new BandwidthDefinition(adjuster, initialCapacity, period, guaranteed));
+        }
+        return new BucketConfiguration(definitions, timeMeter);
+    }
+
+    private static void writeSerializable(DataOutput out, Serializable object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+            objectOut.writeObject(object);
+        }
+        out.writeInt(bytes.size());
+        out.write(bytes.toByteArray());
+    }
+
+    private static Object readSerializable(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return objectIn.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.grid;
+
+import com.github.bucket4j.AbstractBucket;
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketState;
+import com.github.bucket4j.TimeMeter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.bucket4j.BucketExceptions.nonPositiveLeaseTime;
+import static com.github.bucket4j.BucketExceptions.nonPositiveTokensPerLease;
+
+/**
+ * Grid bucket which leases chunks of tokens from the grid and serves consumption from the lease locally,
+ * so one remote call serves up to {@code tokensPerLease} consumptions of single token.
+ * <p>
+ * Leased tokens are consumed from the grid bucket at the moment of lease, so the grid never gives out more tokens than its bandwidths permit.
+ * But leased tokens can be spent later than they were leased, so within any time window consumption across the cluster
+ * can exceed the rate of bucket by at most {@code tokensPerLease} per node which leases from the same grid bucket,
+ * and tokens leased by one node are not available to other nodes until they are spent or returned.
+ * Lease is valid during {@code leaseTime}, unused tokens of expired lease are returned to the grid bucket by the next consumption
+ * which can not be served by the lease, or by {@link #returnLeasedTokens()}.
+ * <p>
+ * Requests for more than {@code tokensPerLease} tokens, blocking consumption which can not be served from the lease,
+ * {@link #addTokens(long)} and {@link #createSnapshot()} are executed directly against the grid bucket,
+ * tokens held by lease are not visible in snapshot.
+ */
+public class LeasedGridBucket extends AbstractBucket {
+
+    private final Bucket gridBucket;
+    private final TimeMeter timeMeter;
+    private final long tokensPerLease;
+    private final long leaseTime;
+
+    private volatile Lease lease = new Lease(0, 0);
+
+    /**
+     * @param gridBucket bucket from which tokens are leased
+     * @param tokensPerLease count of tokens requested by single lease, should be positive
+     * @param leaseTime time in units of time meter during which leased tokens can be spent locally, should be positive
+     */
+    public LeasedGridBucket(Bucket gridBucket, long tokensPerLease, long leaseTime) {
+        super(gridBucket.getConfiguration());
+        if (tokensPerLease <= 0) {
+            throw nonPositiveTokensPerLease(tokensPerLease);
+        }
+        if (leaseTime <= 0) {
+            throw nonPositiveLeaseTime(leaseTime);
+        }
+        this.gridBucket = gridBucket;
+        this.timeMeter = configuration.getTimeMeter();
+        this.tokensPerLease = tokensPerLease;
+        this.leaseTime = leaseTime;
+    }
+
+    @Override
+    protected boolean tryConsumeImpl(long tokensToConsume) {
+        long currentTime = timeMeter.currentTime();
+        if (lease.tryConsume(tokensToConsume, currentTime)) {
+            return true;
+        }
+        if (tokensToConsume > tokensPerLease) {
+            returnTokensOfExpiredLease(currentTime);
+            return gridBucket.tryConsume(tokensToConsume);
+        }
+        return renewLeaseAndConsume(tokensToConsume);
+    }
+
+    @Override
+    protected long consumeAsMuchAsPossibleImpl(long limit) {
+        long currentTime = timeMeter.currentTime();
+        long consumed = lease.consumeAsMuchAsPossible(limit, currentTime);
+        if (consumed < limit) {
+            returnTokensOfExpiredLease(currentTime);
+            consumed += gridBucket.consumeAsMuchAsPossible(limit - consumed);
+        }
+        return consumed;
+    }
+
+    @Override
+    protected boolean consumeOrAwaitImpl(long tokensToConsume, long waitIfBusyNanos) throws InterruptedException {
+        long currentTime = timeMeter.currentTime();
+        if (lease.tryConsume(tokensToConsume, currentTime)) {
+            return true;
+        }
+        returnTokensOfExpiredLease(currentTime);
+        if (waitIfBusyNanos == UNSPECIFIED_WAITING_LIMIT) {
+            gridBucket.consume(tokensToConsume);
+            return true;
+        }
+        return gridBucket.tryConsume(tokensToConsume, waitIfBusyNanos);
+    }
+
+    @Override
+    protected void addTokensImpl(long tokensToAdd) {
+        gridBucket.addTokens(tokensToAdd);
+    }
+
+    @Override
+    public BucketState createSnapshot() {
+        return gridBucket.createSnapshot();
+    }
+
+    /**
+     * Returns tokens which were leased but not spent yet back to the grid bucket, for example before shutdown of node.
+     */
+    public synchronized void returnLeasedTokens() {
+        long unused = lease.drain();
+        if (unused > 0) {
+            gridBucket.addTokens(unused);
+        }
+    }
+
+    private void returnTokensOfExpiredLease(long currentTime) {
+        Lease current = lease;
+        if (!current.isExpired(currentTime) || current.tokens.get() == 0) {
+            return;
+        }
+        synchronized (this) {
+            // lease could be renewed by another thread
+            if (lease == current) {
+                long unused = current.drain();
+                if (unused > 0) {
+                    gridBucket.addTokens(unused);
+                }
+            }
+        }
+    }
+
+    private synchronized boolean renewLeaseAndConsume(long tokensToConsume) {
+        long currentTime = timeMeter.currentTime();
+        Lease current = lease;
+        if (current.tryConsume(tokensToConsume, currentTime)) {
+            // lease was renewed by another thread
+            return true;
+        }
+
+        long kept = current.drain();
+        if (current.isExpired(currentTime) && kept > 0) {
+            gridBucket.addTokens(kept);
+            kept = 0;
+        }
+        long leased = kept + gridBucket.consumeAsMuchAsPossible(tokensPerLease - kept);
+        if (leased >= tokensToConsume) {
+            lease = new Lease(leased - tokensToConsume, currentTime + leaseTime);
+            return true;
+        }
+        // bucket is almost empty, tokens are kept in lease until it expires in order to do not return them on each rejected request
+        lease = new Lease(leased, currentTime + leaseTime);
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "LeasedGridBucket{" +
+                "tokensPerLease=" + tokensPerLease +
+                ", leaseTime=" + leaseTime +
+                ", lease=" + lease.tokens.get() +
+                ", gridBucket=" + gridBucket +
+                '}';
+    }
+
+    private static final class Lease {
+
+        private final AtomicLong tokens;
+        private final long expirationTime;
+
+        private Lease(long tokens, long expirationTime) {
+            this.tokens = new AtomicLong(tokens);
+            this.expirationTime = expirationTime;
+        }
+
+        private boolean isExpired(long currentTime) {
+            return currentTime >= expirationTime;
+        }
+
+        private boolean tryConsume(long tokensToConsume, long currentTime) {
+            if (isExpired(currentTime)) {
+                return false;
+            }
+            while (true) {
+                long available = tokens.get();
+                if (available < tokensToConsume) {
+                    return false;
+                }
+                if (tokens.compareAndSet(available, available - tokensToConsume)) {
+                    return true;
+                }
+            }
+        }
+
+        private long consumeAsMuchAsPossible(long limit, long currentTime) {
+            if (isExpired(currentTime)) {
+                return 0;
+            }
+            while (true) {
+                long available = tokens.get();
+                long toConsume = Math.min(available, limit);
+                if (toConsume == 0 || tokens.compareAndSet(available, available - toConsume)) {
+                    return toConsume;
+                }
+            }
+        }
+
+        private long drain() {
+            return tokens.getAndSet(0);
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.grid;
+
+import com.github.bucket4j.Bandwidth;
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.BucketState;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Reserves tokens for waiting consumer of grid bucket.
+ * <p>
+ * Tokens are reserved only when they are refilled within {@link GridBucketExpiration#getReservationHorizon reservation horizon},
+ * so debt of bucket never outlives the entry. Result of command is time to sleep after reservation, {@link Long#MAX_VALUE} when tokens were not reserved
+ * because they can never be consumed or required waiting exceeds the limit, or negative value when tokens were not reserved
+ * because of horizon, in such case absolute value is time after which reservation should be repeated.
+ */
+public class ReserveAndCalculateTimeToSleepCommand implements GridCommand<Long>, Externalizable {
+
+    private long tokensToConsume;
+    private long waitIfBusyTimeLimit;
+    private boolean bucketStateModified;
+
+    public ReserveAndCalculateTimeToSleepCommand() {
+    }
+
+    public ReserveAndCalculateTimeToSleepCommand(long tokensToConsume, long waitIfBusyTimeLimit) {
+        this.tokensToConsume = tokensToConsume;
+        this.waitIfBusyTimeLimit = waitIfBusyTimeLimit;
+    }
+
+    @Override
+    public Long execute(GridBucketState gridState, long currentTime) {
+        BucketConfiguration configuration = gridState.getBucketConfiguration();
+        BucketState state = gridState.getBucketState();
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        state.refill(bandwidths, currentTime);
+        long delay = state.delayAfterWillBePossibleToConsume(bandwidths, currentTime, tokensToConsume);
+        long horizon = GridBucketExpiration.getReservationHorizon(configuration);
+        if (delay != Long.MAX_VALUE && delay > horizon && (waitIfBusyTimeLimit <= 0 || delay < waitIfBusyTimeLimit)) {
+            // debt would not be paid off within time to live of entry, so caller should wait until it becomes possible to reserve
+            bucketStateModified = false;
+            return horizon - delay;
+        }
+        long timeToSleep = state.reserveAndCalculateTimeToSleep(bandwidths, currentTime, tokensToConsume, waitIfBusyTimeLimit);
+        bucketStateModified = timeToSleep != Long.MAX_VALUE;
+        return timeToSleep;
+    }
+
+    @Override
+    public boolean isBucketStateModified() {
+        return bucketStateModified;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        writeTo(out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        readFrom(in);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(tokensToConsume);
+        out.writeLong(waitIfBusyTimeLimit);
+    }
+
+    void readFrom(DataInput in) throws IOException {
+        tokensToConsume = in.readLong();
+        waitIfBusyTimeLimit = in.readLong();
+    }
+
+}
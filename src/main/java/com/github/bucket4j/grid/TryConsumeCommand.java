@@ -20,20 +20,29 @@ import com.github.bucket4j.Bandwidth;
 import com.github.bucket4j.BucketConfiguration;
 import com.github.bucket4j.BucketState;
 
-public class TryConsumeCommand implements GridCommand<Boolean> {
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+public class TryConsumeCommand implements GridCommand<Boolean>, Externalizable {
 
     private long tokensToConsume;
     private boolean bucketStateModified;
 
+    public TryConsumeCommand() {
+    }
+
     public TryConsumeCommand(long tokensToConsume) {
         this.tokensToConsume = tokensToConsume;
     }
 
     @Override
-    public Boolean execute(GridBucketState gridState) {
+    public Boolean execute(GridBucketState gridState, long currentTime) {
         BucketConfiguration configuration = gridState.getBucketConfiguration();
         BucketState state = gridState.getBucketState();
-        long currentTime = configuration.getTimeMeter().currentTime();
         Bandwidth[] bandwidths = configuration.getBandwidths();
         state.refill(bandwidths, currentTime);
         long availableToConsume = state.getAvailableTokens(bandwidths);
@@ -46,9 +55,31 @@ public class TryConsumeCommand implements GridCommand<Boolean> {
         }
     }
 
+    public long getTokensToConsume() {
+        return tokensToConsume;
+    }
+
     @Override
     public boolean isBucketStateModified() {
         return bucketStateModified;
     }
 
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        writeTo(out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        readFrom(in);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(tokensToConsume);
+    }
+
+    void readFrom(DataInput in) throws IOException {
+        tokensToConsume = in.readLong();
+    }
+
 }
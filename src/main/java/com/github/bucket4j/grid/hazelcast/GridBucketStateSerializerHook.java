@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.grid.hazelcast;
+
+import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.GridSerialization;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.Serializer;
+import com.hazelcast.nio.serialization.SerializerHook;
+import com.hazelcast.nio.serialization.StreamSerializer;
+
+import java.io.IOException;
+
+/**
+ * Registers compact serializer of {@link GridBucketState} in Hazelcast,
+ * the hook is discovered by Hazelcast automatically via {@code META-INF/services/com.hazelcast.SerializerHook}.
+ * Serializer can be overridden by {@link com.hazelcast.config.SerializerConfig} if needed.
+ */
+public class GridBucketStateSerializerHook implements SerializerHook<GridBucketState> {
+
+    public static final int TYPE_ID = 0x4234;
+
+    @Override
+    public Class<GridBucketState> getSerializationType() {
+        return GridBucketState.class;
+    }
+
+    @Override
+    public Serializer createSerializer() {
+        return new GridBucketStateSerializer();
+    }
+
+    @Override
+    public boolean isOverwritable() {
+        return true;
+    }
+
+    public static class GridBucketStateSerializer implements StreamSerializer<GridBucketState> {
+
+        @Override
+        public int getTypeId() {
+            return TYPE_ID;
+        }
+
+        @Override
+        public void write(ObjectDataOutput out, GridBucketState state) throws IOException {
+            GridSerialization.writeGridBucketState(out, state);
+        }
+
+        @Override
+        public GridBucketState read(ObjectDataInput in) throws IOException {
+            return GridSerialization.readGridBucketState(in);
+        }
+
+        @Override
+        public void destroy() {
+        }
+
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.grid.hazelcast;
+
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.GridBulkProxy;
+import com.github.bucket4j.grid.GridCommand;
+import com.hazelcast.core.IMap;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+public class HazelcastBulkProxy<K> implements GridBulkProxy<K> {
+
+    private final IMap<Object, GridBucketState> map;
+
+    public HazelcastBulkProxy(IMap<Object, GridBucketState> map) {
+        this.map = map;
+    }
+
+    @Override
+    public <T extends Serializable> T execute(K key, BucketConfiguration configuration, GridCommand<T> command) {
+        if (command.isReadOnly()) {
+            return command.execute(GridBucketState.stateOrInitial(map.get(key), configuration));
+        }
+        HazelcastCommand<T> entryProcessor = new HazelcastCommand<>(command, configuration, false);
+        return (T) map.executeOnKey(key, entryProcessor);
+    }
+
+    /**
+     * Commands are submitted to all keys at once and executed concurrently, so the call costs single network round trip in terms of latency.
+     * Each key is processed by own {@link HazelcastCommand}, because Hazelcast shares single entry processor instance between partitions
+     * of the member in {@link IMap#executeOnKeys}, so such processor has no reliable way to send to backup of partition only own keys.
+     */
+    @Override
+    public <T extends Serializable> Map<K, T> executeAll(BucketConfiguration configuration, Map<K, ? extends GridCommand<T>> commands) {
+        Map<K, Future<T>> futures = new HashMap<>(commands.size() * 2);
+        for (Map.Entry<K, ? extends GridCommand<T>> entry : commands.entrySet()) {
+            HazelcastCommand<T> entryProcessor = new HazelcastCommand<>(entry.getValue(), configuration, false);
+            futures.put(entry.getKey(), map.submitToKey(entry.getKey(), entryProcessor));
+        }
+        Map<K, T> results = new HashMap<>(commands.size() * 2);
+        for (Map.Entry<K, Future<T>> entry : futures.entrySet()) {
+            results.put(entry.getKey(), getResult(entry.getValue()));
+        }
+        return results;
+    }
+
+    private static <T> T getResult(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+}
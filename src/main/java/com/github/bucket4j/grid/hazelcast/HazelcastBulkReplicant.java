@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.grid.hazelcast;
+
+import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.GridSerialization;
+import com.hazelcast.map.EntryBackupProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+public class HazelcastBulkReplicant implements EntryBackupProcessor, IdentifiedDataSerializable {
+
+    private Map<Object, GridBucketState> statesToBackup;
+
+    public HazelcastBulkReplicant(Map<Object, GridBucketState> statesToBackup) {
+        this.statesToBackup = statesToBackup;
+    }
+
+    public HazelcastBulkReplicant() {
+    }
+
+    @Override
+    public void processBackup(Map.Entry entry) {
+        GridBucketState state = statesToBackup.get(entry.getKey());
+        if (state != null) {
+            entry.setValue(state);
+        }
+    }
+
+    @Override
+    public int getFactoryId() {
+        return HazelcastDataSerializerHook.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return HazelcastDataSerializerHook.BULK_REPLICANT;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(statesToBackup.size());
+        for (Map.Entry<Object, GridBucketState> entry : statesToBackup.entrySet()) {
+            out.writeObject(entry.getKey());
+            GridSerialization.writeGridBucketState(out, entry.getValue());
+        }
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        int size = in.readInt();
+        statesToBackup = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            Object key = in.readObject();
+            statesToBackup.put(key, GridSerialization.readGridBucketState(in));
+        }
+    }
+
+}
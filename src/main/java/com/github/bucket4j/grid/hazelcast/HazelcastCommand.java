@@ -13,29 +13,88 @@
  *  See the License for the specific language governing permissions and
  *  limitations under the License.
  */
-
 package com.github.bucket4j.grid.hazelcast;
 
+import com.github.bucket4j.BucketConfiguration;
 import com.github.bucket4j.grid.GridBucketState;
 import com.github.bucket4j.grid.GridCommand;
+import com.github.bucket4j.grid.GridSerialization;
 import com.hazelcast.map.EntryBackupProcessor;
 import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.Map;
 
-public class HazelcastCommand<T extends Serializable> implements EntryProcessor<Object, GridBucketState>, Serializable {
+/**
+ * Entry processor which executes command against the bucket stored by single key.
+ * <p>
+ * When configuration is specified, absent bucket is initialized by this configuration inside of the processor,
+ * so bucket is created on the first access in scope of the same call instead of separate {@code putIfAbsent}.
+ * Configuration is sent as reference when it is registered in {@link com.github.bucket4j.grid.GridConfigurationRegistry}.
+ */
+public class HazelcastCommand<T extends Serializable> implements EntryProcessor<Object, GridBucketState>, IdentifiedDataSerializable {
 
-    private final GridCommand<T> targetCommand;
+    private GridCommand<T> targetCommand;
+    private BucketConfiguration configuration;
+    private boolean replayOnBackup;
     private long[] snapshotToBackup;
+    private Map<Object, GridBucketState> createdStateToBackup;
+    private long timeOfExecution;
+    private boolean replayRequired;
+
+    public HazelcastCommand() {
+    }
 
     public HazelcastCommand(GridCommand<T> targetCommand) {
+        this(targetCommand, false);
+    }
+
+    public HazelcastCommand(GridCommand<T> targetCommand, boolean replayOnBackup) {
+        this(targetCommand, null, replayOnBackup);
+    }
+
+    /**
+     * @param targetCommand command to execute
+     * @param configuration configuration which is used to initialize absent bucket, {@code null} means that bucket should be already initialized
+     * @param replayOnBackup when true the command itself with time of execution is sent to backup replicas instead of snapshot of bucket state
+     */
+    public HazelcastCommand(GridCommand<T> targetCommand, BucketConfiguration configuration, boolean replayOnBackup) {
         this.targetCommand = targetCommand;
+        this.configuration = configuration;
+        this.replayOnBackup = replayOnBackup;
     }
 
     @Override
     public T process(Map.Entry<Object, GridBucketState> entry) {
         GridBucketState gridState = entry.getValue();
+        if (gridState == null && configuration != null) {
+            gridState = GridBucketState.createInitialState(configuration);
+            T result = targetCommand.execute(gridState);
+            if (!targetCommand.isBucketStateModified() && GridBucketState.isInitialStateFull(configuration)) {
+                return result;
+            }
+            entry.setValue(gridState);
+            // backup replica has no state to apply snapshot or replay command, so whole state is sent
+            GridBucketState stateToBackup = new GridBucketState(configuration, gridState.getBucketState().clone());
+            createdStateToBackup = Collections.singletonMap(entry.getKey(), stateToBackup);
+            return result;
+        }
+
+        if (replayOnBackup) {
+            timeOfExecution = gridState.getBucketConfiguration().getTimeMeter().currentTime();
+            T result = targetCommand.execute(gridState, timeOfExecution);
+            if (targetCommand.isBucketStateModified()) {
+                entry.setValue(gridState);
+                replayRequired = true;
+            }
+            return result;
+        }
+
         T result = targetCommand.execute(gridState);
         if (targetCommand.isBucketStateModified()) {
             entry.setValue(gridState);
@@ -46,9 +105,43 @@ public class HazelcastCommand<T extends Serializable> implements EntryProcessor<
 
     @Override
     public EntryBackupProcessor getBackupProcessor() {
+        if (createdStateToBackup != null) {
+            return new HazelcastBulkReplicant(createdStateToBackup);
+        }
+        if (replayRequired) {
+            return new HazelcastReplayReplicant(targetCommand, timeOfExecution);
+        }
         if (snapshotToBackup == null) {
             return null;
         }
         return new HazelcastReplicant(snapshotToBackup);
     }
+
+    @Override
+    public int getFactoryId() {
+        return HazelcastDataSerializerHook.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return HazelcastDataSerializerHook.COMMAND;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        GridSerialization.writeCommand(out, targetCommand);
+        out.writeBoolean(configuration != null);
+        if (configuration != null) {
+            GridSerialization.writeConfigurationReference(out, configuration);
+        }
+        out.writeBoolean(replayOnBackup);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        targetCommand = (GridCommand<T>) GridSerialization.readCommand(in);
+        configuration = in.readBoolean() ? GridSerialization.readConfigurationReference(in) : null;
+        replayOnBackup = in.readBoolean();
+    }
+
 }
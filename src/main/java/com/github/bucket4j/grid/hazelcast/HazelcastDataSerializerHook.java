@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.grid.hazelcast;
+
+import com.hazelcast.nio.serialization.DataSerializableFactory;
+import com.hazelcast.nio.serialization.DataSerializerHook;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+/**
+ * Registers factory of bucket4j entry processors in Hazelcast,
+ * the hook is discovered by Hazelcast automatically via {@code META-INF/services/com.hazelcast.DataSerializerHook}.
+ */
+public class HazelcastDataSerializerHook implements DataSerializerHook {
+
+    public static final int FACTORY_ID = 0x4234;
+
+    public static final int COMMAND = 1;
+    public static final int REPLICANT = 2;
+    public static final int BULK_REPLICANT = 4;
+    public static final int REPLAY_REPLICANT = 5;
+
+    @Override
+    public int getFactoryId() {
+        return FACTORY_ID;
+    }
+
+    @Override
+    public DataSerializableFactory createFactory() {
+        return new DataSerializableFactory() {
+            @Override
+            public IdentifiedDataSerializable create(int typeId) {
+                switch (typeId) {
+                    case COMMAND:
+                        return new HazelcastCommand();
+                    case REPLICANT:
+                        return new HazelcastReplicant();
+                    case BULK_REPLICANT:
+                        return new HazelcastBulkReplicant();
+                    case REPLAY_REPLICANT:
+                        return new HazelcastReplayReplicant();
+                    default:
+                        return null;
+                }
+            }
+        };
+    }
+
+}
@@ -16,32 +16,148 @@
 
 package com.github.bucket4j.grid.hazelcast;
 
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.grid.GridBucketExpiration;
 import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.GridConfigurationRegistry;
 import com.github.bucket4j.grid.GridCommand;
 import com.github.bucket4j.grid.GridProxy;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.ICompletableFuture;
 import com.hazelcast.core.IMap;
 
 import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 
+import static com.github.bucket4j.BucketExceptions.unregisteredConfigurationForObjectFormat;
+import static com.github.bucket4j.BucketExceptions.unsupportedInMemoryFormat;
+
+/**
+ * Proxy which does not write initial state of bucket to the map, instead absent bucket is initialized inside of the entry processor
+ * by the first modifying command, so construction of bucket costs nothing and each operation costs exactly one round trip.
+ */
 public class HazelcastProxy implements GridProxy {
 
     private final IMap<Object, GridBucketState> map;
     private final Serializable key;
+    private final boolean replayOnBackup;
+    private BucketConfiguration configuration;
 
     public HazelcastProxy(IMap<Object, GridBucketState> map, Serializable key) {
+        this(map, key, false);
+    }
+
+    /**
+     * @param map distributed map which holds the bucket
+     * @param key key of bucket
+     * @param replayOnBackup when true, modifying commands are replayed on backup replicas instead of copying of whole bucket state
+     *
+     * @see HazelcastReplayReplicant
+     */
+    public HazelcastProxy(IMap<Object, GridBucketState> map, Serializable key, boolean replayOnBackup) {
         this.map = map;
         this.key = key;
+        this.replayOnBackup = replayOnBackup;
     }
 
     @Override
     public <T extends Serializable> T execute(GridCommand<T> command) {
-        HazelcastCommand entryProcessor = new HazelcastCommand(command);
+        if (command.isReadOnly()) {
+            // plain read does not occupy the partition thread by entry processing and can be served from backup when readBackupData is enabled
+            return command.execute(GridBucketState.stateOrInitial(map.get(key), configuration));
+        }
+        HazelcastCommand entryProcessor = new HazelcastCommand(command, configuration, replayOnBackup);
         return (T) map.executeOnKey(key, entryProcessor);
     }
 
     @Override
-    public void setInitialState(GridBucketState initialState) {
-        map.putIfAbsent(key, initialState);
+    public <T extends Serializable> CompletableFuture<T> executeAsync(GridCommand<T> command) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (command.isReadOnly()) {
+            Future<GridBucketState> stateFuture = map.getAsync(key);
+            if (stateFuture instanceof ICompletableFuture) {
+                ((ICompletableFuture<GridBucketState>) stateFuture).andThen(new ExecutionCallback<GridBucketState>() {
+                    @Override
+                    public void onResponse(GridBucketState state) {
+                        try {
+                            future.complete(command.execute(GridBucketState.stateOrInitial(state, configuration)));
+                        } catch (Throwable t) {
+                            future.completeExceptionally(t);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        future.completeExceptionally(t);
+                    }
+                });
+                return future;
+            }
+        }
+
+        HazelcastCommand entryProcessor = new HazelcastCommand(command, configuration, replayOnBackup);
+        map.submitToKey(key, entryProcessor, new ExecutionCallback() {
+            @Override
+            public void onResponse(Object response) {
+                future.complete((T) response);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void setConfiguration(BucketConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Configures map to expire entries which were not updated during the time in which bucket with specified configuration becomes full again,
+     * so map does not accumulate buckets for keys which are not used anymore. Hazelcast resets time to live of entry on each update,
+     * and expired bucket is initialized as full on the next access, so expiration is invisible for consumers.
+     * Map config should be configured before the map is created.
+     *
+     * @param mapConfig configuration of map which holds buckets
+     * @param configuration configuration of buckets stored in the map, when buckets with different configurations share the map
+     *                      then configuration with longest time to live should be used
+     *
+     * @see GridBucketExpiration
+     */
+    public static MapConfig configureExpiration(MapConfig mapConfig, BucketConfiguration configuration) {
+        long timeToLiveSeconds = Math.min(GridBucketExpiration.getTimeToLiveSeconds(configuration), Integer.MAX_VALUE);
+        return mapConfig.setTimeToLiveSeconds((int) timeToLiveSeconds);
+    }
+
+    /**
+     * Checks that map can hold buckets with specified configuration.
+     * <p>
+     * In BINARY format each command deserializes state of bucket before execution and serializes it back after modification.
+     * In OBJECT format command modifies stored state in place, so there is no serialization of state at all
+     * when command is invoked from the member which owns the key, because Hazelcast does not serialize local operations.
+     * Stored states reference configuration which arrived with command, so OBJECT format requires configuration to be registered
+     * in {@link GridConfigurationRegistry}, this way all states share single configuration instance of the member.
+     *
+     * @param mapConfig configuration of map which holds buckets
+     * @param configuration configuration of buckets
+     *
+     * @throws IllegalArgumentException if in-memory format is not supported or configuration is not registered for OBJECT format
+     */
+    public static void checkInMemoryFormat(MapConfig mapConfig, BucketConfiguration configuration) {
+        InMemoryFormat format = mapConfig.getInMemoryFormat();
+        if (format == InMemoryFormat.OBJECT) {
+            if (GridConfigurationRegistry.getId(configuration) == null) {
+                throw unregisteredConfigurationForObjectFormat(mapConfig.getName());
+            }
+        } else if (format != InMemoryFormat.BINARY) {
+            throw unsupportedInMemoryFormat(mapConfig.getName(), format);
+        }
     }
 
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.grid.hazelcast;
+
+import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.GridCommand;
+import com.github.bucket4j.grid.GridSerialization;
+import com.hazelcast.map.EntryBackupProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Backup processor which replays the command on backup replica with the time of execution on primary replica,
+ * so backup receives only the command and timestamp instead of whole state of bucket.
+ */
+public class HazelcastReplayReplicant implements EntryBackupProcessor, IdentifiedDataSerializable {
+
+    private GridCommand<?> command;
+    private long timeOfExecution;
+
+    public HazelcastReplayReplicant(GridCommand<?> command, long timeOfExecution) {
+        this.command = command;
+        this.timeOfExecution = timeOfExecution;
+    }
+
+    public HazelcastReplayReplicant() {
+    }
+
+    @Override
+    public void processBackup(Map.Entry entry) {
+        GridBucketState gridState = (GridBucketState) entry.getValue();
+        if (gridState == null) {
+            // backup replica has not received the entry yet, it will be synchronized by Hazelcast replica sync
+            return;
+        }
+        command.execute(gridState, timeOfExecution);
+        entry.setValue(gridState);
+    }
+
+    @Override
+    public int getFactoryId() {
+        return HazelcastDataSerializerHook.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return HazelcastDataSerializerHook.REPLAY_REPLICANT;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        GridSerialization.writeCommand(out, command);
+        out.writeLong(timeOfExecution);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        command = GridSerialization.readCommand(in);
+        timeOfExecution = in.readLong();
+    }
+
+}
@@ -13,16 +13,18 @@
  *  See the License for the specific language governing permissions and
  *  limitations under the License.
  */
-
 package com.github.bucket4j.grid.hazelcast;
 
 import com.github.bucket4j.grid.GridBucketState;
 import com.hazelcast.map.EntryBackupProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 
-import java.io.Serializable;
+import java.io.IOException;
 import java.util.Map;
 
-public class HazelcastReplicant implements EntryBackupProcessor, Serializable {
+public class HazelcastReplicant implements EntryBackupProcessor, IdentifiedDataSerializable {
 
     private long[] snapshotToBackup;
 
@@ -40,4 +42,25 @@ public class HazelcastReplicant implements EntryBackupProcessor, Serializable {
         gridState.getBucketState().copyState(snapshotToBackup);
         entry.setValue(gridState);
     }
+
+    @Override
+    public int getFactoryId() {
+        return HazelcastDataSerializerHook.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return HazelcastDataSerializerHook.REPLICANT;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeLongArray(snapshotToBackup);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        snapshotToBackup = in.readLongArray();
+    }
+
 }
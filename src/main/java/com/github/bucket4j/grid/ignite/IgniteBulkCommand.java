@@ -0,0 +1,40 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.grid.ignite;
+
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.grid.GridCommand;
+import com.github.bucket4j.grid.jcache.JCacheCommand;
+
+import java.io.Serializable;
+
+/**
+ * Entry processor which is submitted via {@link org.apache.ignite.IgniteCache#invokeAll(java.util.Map, Object...)},
+ * each key has own instance of processor which holds the command for this key, absent bucket is initialized by configuration.
+ *
+ * @see JCacheCommand
+ */
+public class IgniteBulkCommand<T extends Serializable> extends JCacheCommand<T> {
+
+    public IgniteBulkCommand() {
+    }
+
+    public IgniteBulkCommand(BucketConfiguration configuration, GridCommand<T> targetCommand) {
+        super(targetCommand, configuration);
+    }
+
+}
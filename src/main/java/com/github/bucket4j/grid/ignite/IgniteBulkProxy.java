@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.grid.ignite;
+
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.GridBulkProxy;
+import com.github.bucket4j.grid.GridCommand;
+import org.apache.ignite.IgniteCache;
+
+import javax.cache.processor.EntryProcessorResult;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+public class IgniteBulkProxy<K> implements GridBulkProxy<K> {
+
+    private final IgniteCache<Object, GridBucketState> cache;
+
+    public IgniteBulkProxy(IgniteCache<Object, GridBucketState> cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public <T extends Serializable> T execute(K key, BucketConfiguration configuration, GridCommand<T> command) {
+        if (command.isReadOnly()) {
+            return command.execute(GridBucketState.stateOrInitial(cache.get(key), configuration));
+        }
+        return cache.invoke(key, new IgniteCommand<>(command, configuration));
+    }
+
+    @Override
+    public <T extends Serializable> Map<K, T> executeAll(BucketConfiguration configuration, Map<K, ? extends GridCommand<T>> commands) {
+        Map<Object, IgniteBulkCommand<T>> entryProcessors = new HashMap<>();
+        for (Map.Entry<K, ? extends GridCommand<T>> entry : commands.entrySet()) {
+            entryProcessors.put(entry.getKey(), new IgniteBulkCommand<>(configuration, entry.getValue()));
+        }
+        Map<Object, EntryProcessorResult<T>> results = cache.invokeAll(entryProcessors);
+        Map<K, T> resultsByKeys = new HashMap<>();
+        for (Map.Entry<Object, EntryProcessorResult<T>> entry : results.entrySet()) {
+            resultsByKeys.put((K) entry.getKey(), entry.getValue().get());
+        }
+        return resultsByKeys;
+    }
+
+}
@@ -16,25 +16,32 @@
 
 package com.github.bucket4j.grid.ignite;
 
-import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.BucketConfiguration;
 import com.github.bucket4j.grid.GridCommand;
+import com.github.bucket4j.grid.jcache.JCacheCommand;
 
-import javax.cache.processor.EntryProcessor;
-import javax.cache.processor.EntryProcessorException;
-import javax.cache.processor.MutableEntry;
 import java.io.Serializable;
 
-public class IgniteCommand<T extends Serializable> implements EntryProcessor<Object, GridBucketState, T> {
+/**
+ * Ignite cache is JCache provider, so Ignite uses the same entry processor as any JCache provider.
+ * <p>
+ * State of bucket is deserialized on the node which processes the entry. Updating of state in place via {@code withKeepBinary()}
+ * is not possible, because binary objects appeared only in Ignite 1.5, so with supported version of Ignite
+ * the cost of invocation is reduced only by cheap {@link java.io.Externalizable} form of command and state.
+ *
+ * @see JCacheCommand
+ */
+public class IgniteCommand<T extends Serializable> extends JCacheCommand<T> {
+
+    public IgniteCommand() {
+    }
 
-    @Override
-    public T process(MutableEntry<Object, GridBucketState> mutableEntry, Object... arguments) throws EntryProcessorException {
-        GridCommand<T> targetCommand = (GridCommand<T>) arguments[0];
-        GridBucketState state = mutableEntry.getValue();
-        T result = targetCommand.execute(state);
-        if (targetCommand.isBucketStateModified()) {
-            mutableEntry.setValue(state);
-        }
-        return result;
+    /**
+     * @param targetCommand command to execute
+     * @param configuration configuration which is used to initialize absent bucket, {@code null} means that bucket should be already initialized
+     */
+    public IgniteCommand(GridCommand<T> targetCommand, BucketConfiguration configuration) {
+        super(targetCommand, configuration);
     }
 
 }
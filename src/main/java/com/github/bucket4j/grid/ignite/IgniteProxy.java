@@ -16,31 +16,74 @@
 
 package com.github.bucket4j.grid.ignite;
 
+import com.github.bucket4j.BucketConfiguration;
 import com.github.bucket4j.grid.GridBucketState;
 import com.github.bucket4j.grid.GridCommand;
 import com.github.bucket4j.grid.GridProxy;
 import org.apache.ignite.IgniteCache;
+import org.apache.ignite.lang.IgniteFuture;
 
 import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Proxy which does not write initial state of bucket to the cache, instead absent bucket is initialized inside of the entry processor
+ * by the first modifying command, so construction of bucket costs nothing and each operation costs exactly one round trip.
+ */
 public class IgniteProxy implements GridProxy {
 
     private final IgniteCache<Object, GridBucketState> cache;
+    private final IgniteCache<Object, GridBucketState> asyncCache;
     private final Object key;
+    private BucketConfiguration configuration;
 
     public IgniteProxy(IgniteCache<Object, GridBucketState> cache, Object key) {
         this.cache = cache;
+        this.asyncCache = cache.withAsync();
         this.key = key;
     }
 
     @Override
     public <T extends Serializable> T execute(GridCommand<T> command) {
-        return cache.invoke(key, new IgniteCommand<T>(), command);
+        if (command.isReadOnly()) {
+            // plain read does not lock the entry and does not produce update for backups
+            return command.execute(GridBucketState.stateOrInitial(cache.get(key), configuration));
+        }
+        return cache.invoke(key, new IgniteCommand<>(command, configuration));
+    }
+
+    @Override
+    public <T extends Serializable> CompletableFuture<T> executeAsync(GridCommand<T> command) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (command.isReadOnly()) {
+            asyncCache.get(key);
+            IgniteFuture<GridBucketState> stateFuture = asyncCache.future();
+            stateFuture.listen(completedFuture -> {
+                try {
+                    future.complete(command.execute(GridBucketState.stateOrInitial(completedFuture.get(), configuration)));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+            return future;
+        }
+
+        // future of asynchronous cache is bound to the calling thread, so it must be obtained right after invocation
+        asyncCache.invoke(key, new IgniteCommand<>(command, configuration));
+        IgniteFuture<T> igniteFuture = asyncCache.future();
+        igniteFuture.listen(completedFuture -> {
+            try {
+                future.complete(completedFuture.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
     }
 
     @Override
-    public void setInitialState(GridBucketState initialState) {
-        cache.putIfAbsent(key, initialState);
+    public void setConfiguration(BucketConfiguration configuration) {
+        this.configuration = configuration;
     }
 
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.grid.jcache;
+
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.GridCommand;
+import com.github.bucket4j.grid.GridSerialization;
+
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.EntryProcessorException;
+import javax.cache.processor.MutableEntry;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Entry processor which is submitted via {@link javax.cache.Cache#invokeAll(java.util.Set, EntryProcessor, Object...)},
+ * JCache shares single processor between all keys, so processor holds commands for all keys and executes own command for each key.
+ * Absent buckets are initialized by configuration in scope of the same invocation.
+ */
+public class JCacheBulkCommand<T extends Serializable> implements EntryProcessor<Object, GridBucketState, T>, Externalizable {
+
+    private BucketConfiguration configuration;
+    private Map<Object, GridCommand<T>> targetCommands;
+
+    public JCacheBulkCommand() {
+    }
+
+    public JCacheBulkCommand(BucketConfiguration configuration, Map<Object, GridCommand<T>> targetCommands) {
+        this.configuration = configuration;
+        this.targetCommands = targetCommands;
+    }
+
+    @Override
+    public T process(MutableEntry<Object, GridBucketState> mutableEntry, Object... arguments) throws EntryProcessorException {
+        GridCommand<T> targetCommand = targetCommands.get(mutableEntry.getKey());
+        return JCacheCommand.execute(mutableEntry, targetCommand, configuration);
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        GridSerialization.writeConfigurationReference(out, configuration);
+        out.writeInt(targetCommands.size());
+        for (Map.Entry<Object, GridCommand<T>> entry : targetCommands.entrySet()) {
+            out.writeObject(entry.getKey());
+            GridSerialization.writeCommand(out, entry.getValue());
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        configuration = GridSerialization.readConfigurationReference(in);
+        int size = in.readInt();
+        targetCommands = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            Object key = in.readObject();
+            targetCommands.put(key, (GridCommand<T>) GridSerialization.readCommand(in));
+        }
+    }
+
+}
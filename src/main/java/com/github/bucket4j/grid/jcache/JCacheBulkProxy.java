@@ -0,0 +1,62 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.grid.jcache;
+
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.GridBulkProxy;
+import com.github.bucket4j.grid.GridCommand;
+
+import javax.cache.Cache;
+import javax.cache.processor.EntryProcessorResult;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk proxy for any JCache (JSR-107) provider which supports entry processors, commands for many keys are executed by single {@code invokeAll}.
+ */
+public class JCacheBulkProxy<K> implements GridBulkProxy<K> {
+
+    private final Cache<Object, GridBucketState> cache;
+
+    public JCacheBulkProxy(Cache<Object, GridBucketState> cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public <T extends Serializable> T execute(K key, BucketConfiguration configuration, GridCommand<T> command) {
+        if (command.isReadOnly()) {
+            return command.execute(GridBucketState.stateOrInitial(cache.get(key), configuration));
+        }
+        return cache.invoke(key, new JCacheCommand<>(command, configuration));
+    }
+
+    @Override
+    public <T extends Serializable> Map<K, T> executeAll(BucketConfiguration configuration, Map<K, ? extends GridCommand<T>> commands) {
+        JCacheBulkCommand<T> entryProcessor = new JCacheBulkCommand<>(configuration, (Map) commands);
+        Set<Object> keys = (Set) commands.keySet();
+        Map<Object, EntryProcessorResult<T>> results = cache.invokeAll(keys, entryProcessor);
+        Map<K, T> resultsByKeys = new HashMap<>();
+        for (Map.Entry<Object, EntryProcessorResult<T>> entry : results.entrySet()) {
+            resultsByKeys.put((K) entry.getKey(), entry.getValue().get());
+        }
+        return resultsByKeys;
+    }
+
+}
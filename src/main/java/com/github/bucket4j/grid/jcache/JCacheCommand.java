@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.grid.jcache;
+
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.GridCommand;
+import com.github.bucket4j.grid.GridSerialization;
+
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.EntryProcessorException;
+import javax.cache.processor.MutableEntry;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+
+/**
+ * Entry processor which executes command against the bucket stored by single key,
+ * absent bucket is initialized by configuration in scope of the same invocation when configuration is specified.
+ * <p>
+ * Processor is serialized by {@link GridSerialization}, so registered configuration is sent as id
+ * and resolved from {@link com.github.bucket4j.grid.GridConfigurationRegistry} of the node which processes the entry,
+ * state of bucket is externalizable too, so the server-side cost of consumption is reading of few primitive fields
+ * instead of deserialization of whole object graph of configuration per invocation.
+ */
+public class JCacheCommand<T extends Serializable> implements EntryProcessor<Object, GridBucketState, T>, Externalizable {
+
+    private GridCommand<T> targetCommand;
+    private BucketConfiguration configuration;
+
+    public JCacheCommand() {
+    }
+
+    /**
+     * @param targetCommand command to execute
+     * @param configuration configuration which is used to initialize absent bucket, {@code null} means that bucket should be already initialized
+     */
+    public JCacheCommand(GridCommand<T> targetCommand, BucketConfiguration configuration) {
+        this.targetCommand = targetCommand;
+        this.configuration = configuration;
+    }
+
+    @Override
+    public T process(MutableEntry<Object, GridBucketState> mutableEntry, Object... arguments) throws EntryProcessorException {
+        return execute(mutableEntry, targetCommand, configuration);
+    }
+
+    static <T extends Serializable> T execute(MutableEntry<Object, GridBucketState> mutableEntry, GridCommand<T> targetCommand, BucketConfiguration configuration) {
+        GridBucketState state = mutableEntry.getValue();
+        boolean persistCreated = false;
+        if (state == null && configuration != null) {
+            state = GridBucketState.createInitialState(configuration);
+            persistCreated = !GridBucketState.isInitialStateFull(configuration);
+        }
+        T result = targetCommand.execute(state);
+        if (persistCreated || targetCommand.isBucketStateModified()) {
+            mutableEntry.setValue(state);
+        }
+        return result;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        GridSerialization.writeCommand(out, targetCommand);
+        out.writeBoolean(configuration != null);
+        if (configuration != null) {
+            GridSerialization.writeConfigurationReference(out, configuration);
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        targetCommand = (GridCommand<T>) GridSerialization.readCommand(in);
+        configuration = in.readBoolean() ? GridSerialization.readConfigurationReference(in) : null;
+    }
+
+}
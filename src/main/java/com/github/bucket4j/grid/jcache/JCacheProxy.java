@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.grid.jcache;
+
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.GridCommand;
+import com.github.bucket4j.grid.GridProxy;
+
+import javax.cache.Cache;
+import java.io.Serializable;
+
+/**
+ * Proxy for any JCache (JSR-107) provider which supports entry processors.
+ * <p>
+ * Proxy does not write initial state of bucket to the cache, instead absent bucket is initialized inside of the entry processor
+ * by the first modifying command, so construction of bucket costs nothing and each operation costs exactly one {@code invoke}.
+ * JCache does not define asynchronous invocation, so asynchronous operations are executed synchronously.
+ * Use {@link com.github.bucket4j.grid.GridBucketExpiration} to configure expiry policy of the cache.
+ */
+public class JCacheProxy implements GridProxy {
+
+    private final Cache<Object, GridBucketState> cache;
+    private final Object key;
+    private BucketConfiguration configuration;
+
+    public JCacheProxy(Cache<Object, GridBucketState> cache, Object key) {
+        this.cache = cache;
+        this.key = key;
+    }
+
+    @Override
+    public <T extends Serializable> T execute(GridCommand<T> command) {
+        if (command.isReadOnly()) {
+            return command.execute(GridBucketState.stateOrInitial(cache.get(key), configuration));
+        }
+        return cache.invoke(key, new JCacheCommand<>(command, configuration));
+    }
+
+    @Override
+    public void setConfiguration(BucketConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+}
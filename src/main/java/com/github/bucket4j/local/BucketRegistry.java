@@ -0,0 +1,350 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.local;
+
+import com.github.bucket4j.Bandwidth;
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.BucketState;
+import com.github.bucket4j.TimeMeter;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Supplier;
+
+import static com.github.bucket4j.BucketExceptions.nonPositiveMaxBuckets;
+import static com.github.bucket4j.BucketExceptions.nonPositiveMaxIdleTime;
+
+/**
+ * Registry of local buckets with similar configuration, each bucket is identified by key, for example by API key or by IP address.
+ * <p>
+ * Bucket is created lazily on first access to the key. Registry evicts:
+ * <ul>
+ *     <li>buckets which have been refilled up to initial capacity, because such buckets are indistinguishable from freshly created;</li>
+ *     <li>buckets which were not accessed during {@code maxIdleTime};</li>
+ *     <li>least recently used buckets when count of buckets exceeds {@code maxBuckets}.</li>
+ * </ul>
+ * Only last kind of eviction loses information about consumed tokens, so rate of the keys which were evicted by this reason
+ * can be temporarily exceeded. Bucket is never evicted while some thread works with it.
+ * <p>
+ * Cleanup is performed by the thread which creates new bucket, when count of buckets exceeds {@code maxBuckets} or when {@code maxIdleTime}
+ * has elapsed since previous cleanup. Cleanup walks through all buckets, so it takes time proportional to count of buckets,
+ * you can invoke {@link #cleanUp()} periodically from background thread if this is not acceptable.
+ * Count of buckets can temporarily exceed {@code maxBuckets} while cleanup is in progress.
+ *
+ * @param <K> type of key
+ */
+public class BucketRegistry<K> {
+
+    // count of buckets which are sampled to find least recently used buckets
+    private static final int LRU_SAMPLE_SIZE = 1024;
+
+    private final BucketConfiguration configuration;
+    private final Supplier<Bucket> bucketFactory;
+    private final long maxIdleTime;
+    private final int maxBuckets;
+    private final ConcurrentHashMap<K, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean cleanUpInProgress = new AtomicBoolean();
+    private volatile long lastCleanUpTime;
+
+    /**
+     * @param configuration configuration of buckets
+     * @param bucketFactory creates new bucket with specified configuration
+     * @param maxIdleTime time in units of {@link TimeMeter} after which bucket which was not accessed is evicted, should be positive
+     * @param maxBuckets maximum count of buckets in the registry, should be positive
+     */
+    public BucketRegistry(BucketConfiguration configuration, Supplier<Bucket> bucketFactory, long maxIdleTime, int maxBuckets) {
+        if (maxIdleTime <= 0) {
+            throw nonPositiveMaxIdleTime(maxIdleTime);
+        }
+        if (maxBuckets <= 0) {
+            throw nonPositiveMaxBuckets(maxBuckets);
+        }
+        this.configuration = configuration;
+        this.bucketFactory = bucketFactory;
+        this.maxIdleTime = maxIdleTime;
+        this.maxBuckets = maxBuckets;
+        this.lastCleanUpTime = configuration.getTimeMeter().currentTime();
+    }
+
+    /**
+     * @see Bucket#tryConsumeSingleToken()
+     */
+    public boolean tryConsumeSingleToken(K key) {
+        return tryConsume(key, 1);
+    }
+
+    /**
+     * @see Bucket#tryConsume(long)
+     */
+    public boolean tryConsume(K key, long numTokens) {
+        Entry entry = acquire(key);
+        try {
+            return entry.bucket.tryConsume(numTokens);
+        } finally {
+            release(entry);
+        }
+    }
+
+    /**
+     * @see Bucket#consumeAsMuchAsPossible()
+     */
+    public long consumeAsMuchAsPossible(K key) {
+        Entry entry = acquire(key);
+        try {
+            return entry.bucket.consumeAsMuchAsPossible();
+        } finally {
+            release(entry);
+        }
+    }
+
+    /**
+     * @see Bucket#consumeAsMuchAsPossible(long)
+     */
+    public long consumeAsMuchAsPossible(K key, long limit) {
+        Entry entry = acquire(key);
+        try {
+            return entry.bucket.consumeAsMuchAsPossible(limit);
+        } finally {
+            release(entry);
+        }
+    }
+
+    /**
+     * @see Bucket#tryConsume(long, long)
+     */
+    public boolean tryConsume(K key, long numTokens, long maxWaitTime) throws InterruptedException {
+        Entry entry = acquire(key);
+        try {
+            return entry.bucket.tryConsume(numTokens, maxWaitTime);
+        } finally {
+            release(entry);
+        }
+    }
+
+    /**
+     * @return snapshot of bucket state associated with key, or {@code null} if there is no bucket for key in the registry
+     */
+    public BucketState getSnapshot(K key) {
+        Entry entry = entries.get(key);
+        return entry == null ? null : entry.bucket.createSnapshot();
+    }
+
+    /**
+     * @return count of buckets in the registry
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Evicts idle buckets and buckets which were refilled up to initial capacity,
+     * then evicts least recently used buckets if count of buckets still exceeds {@code maxBuckets}.
+     * Does nothing if cleanup is already in progress in another thread.
+     *
+     * @return count of evicted buckets
+     */
+    public int cleanUp() {
+        return tryCleanUp(configuration.getTimeMeter().currentTime());
+    }
+
+    public BucketConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    private Entry acquire(K key) {
+        while (true) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                long currentTime = configuration.getTimeMeter().currentTime();
+                Entry createdEntry = new Entry(bucketFactory.get(), currentTime);
+                entry = entries.putIfAbsent(key, createdEntry);
+                if (entry == null) {
+                    // created entry is already acquired, so it can not be evicted by cleanup below
+                    int newSize = size.incrementAndGet();
+                    if (newSize > maxBuckets || currentTime - lastCleanUpTime >= maxIdleTime) {
+                        tryCleanUp(currentTime);
+                    }
+                    return createdEntry;
+                }
+            }
+            if (entry.tryAcquire()) {
+                return entry;
+            }
+            // entry is inspected by cleanup right now, it will be either released or removed from map very soon
+            Thread.yield();
+        }
+    }
+
+    private void release(Entry entry) {
+        entry.touch(configuration.getTimeMeter().currentTime());
+        entry.release();
+    }
+
+    private int tryCleanUp(long currentTime) {
+        if (!cleanUpInProgress.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            lastCleanUpTime = currentTime;
+            int evicted = evictIdleAndRefilled(currentTime);
+            if (size.get() > maxBuckets) {
+                evicted += evictLeastRecentlyUsed(currentTime);
+            }
+            return evicted;
+        } finally {
+            cleanUpInProgress.set(false);
+        }
+    }
+
+    private int evictIdleAndRefilled(long currentTime) {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        int evicted = 0;
+        for (Map.Entry<K, Entry> mapEntry : entries.entrySet()) {
+            Entry entry = mapEntry.getValue();
+            if (!entry.tryLockForEviction()) {
+                continue;
+            }
+            if (currentTime - entry.lastAccessTime >= maxIdleTime || isRefilledToInitialCapacity(entry.bucket, bandwidths, currentTime)) {
+                evict(mapEntry.getKey(), entry);
+                evicted++;
+            } else {
+                entry.unlockAfterEviction();
+            }
+        }
+        return evicted;
+    }
+
+    private int evictLeastRecentlyUsed(long currentTime) {
+        // leave a quarter of free space in order to amortize cost of walking through all buckets
+        int targetSize = maxBuckets - maxBuckets / 4;
+
+        // iteration order of hash map does not correlate with access time, so first buckets are good sample
+        long[] idleTimes = new long[LRU_SAMPLE_SIZE];
+        int sampleSize = 0;
+        for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext() && sampleSize < idleTimes.length; ) {
+            idleTimes[sampleSize++] = currentTime - iterator.next().lastAccessTime;
+        }
+        if (sampleSize == 0) {
+            return 0;
+        }
+        Arrays.sort(idleTimes, 0, sampleSize);
+        int currentSize = size.get();
+        double shareToEvict = (double) (currentSize - targetSize) / currentSize;
+        int thresholdIndex = Math.max(0, sampleSize - 1 - (int) (shareToEvict * sampleSize));
+        long idleTimeThreshold = idleTimes[thresholdIndex];
+
+        int evicted = 0;
+        for (Map.Entry<K, Entry> mapEntry : entries.entrySet()) {
+            if (size.get() <= targetSize) {
+                break;
+            }
+            Entry entry = mapEntry.getValue();
+            if (!entry.tryLockForEviction()) {
+                continue;
+            }
+            if (currentTime - entry.lastAccessTime >= idleTimeThreshold) {
+                evict(mapEntry.getKey(), entry);
+                evicted++;
+            } else {
+                entry.unlockAfterEviction();
+            }
+        }
+        return evicted;
+    }
+
+    private void evict(K key, Entry entry) {
+        // entry stays locked forever, so threads which still see it will go to the map again
+        entries.remove(key, entry);
+        size.decrementAndGet();
+    }
+
+    private static boolean isRefilledToInitialCapacity(Bucket bucket, Bandwidth[] bandwidths, long currentTime) {
+        BucketState snapshot = bucket.createSnapshot();
+        snapshot.refill(bandwidths, currentTime);
+        for (Bandwidth bandwidth : bandwidths) {
+            if (bandwidth.getCurrentSize(snapshot) < bandwidth.getInitialCapacity()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Entry {
+
+        private static final AtomicIntegerFieldUpdater<Entry> USERS_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Entry.class, "users");
+        private static final AtomicLongFieldUpdater<Entry> LAST_ACCESS_TIME_UPDATER = AtomicLongFieldUpdater.newUpdater(Entry.class, "lastAccessTime");
+        private static final int LOCKED_FOR_EVICTION = -1;
+
+        private final Bucket bucket;
+        private volatile long lastAccessTime;
+        // count of threads which work with bucket, or LOCKED_FOR_EVICTION
+        private volatile int users;
+
+        private Entry(Bucket bucket, long currentTime) {
+            this.bucket = bucket;
+            this.lastAccessTime = currentTime;
+            this.users = 1;
+        }
+
+        private boolean tryAcquire() {
+            while (true) {
+                int currentUsers = users;
+                if (currentUsers == LOCKED_FOR_EVICTION) {
+                    return false;
+                }
+                if (USERS_UPDATER.compareAndSet(this, currentUsers, currentUsers + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release() {
+            USERS_UPDATER.decrementAndGet(this);
+        }
+
+        private void touch(long currentTime) {
+            LAST_ACCESS_TIME_UPDATER.lazySet(this, currentTime);
+        }
+
+        private boolean tryLockForEviction() {
+            return USERS_UPDATER.compareAndSet(this, 0, LOCKED_FOR_EVICTION);
+        }
+
+        private void unlockAfterEviction() {
+            users = 0;
+        }
+
+    }
+
+    @Override
+    public String toString() {
+        return "BucketRegistry{" +
+                "size=" + size +
+                ", maxIdleTime=" + maxIdleTime +
+                ", maxBuckets=" + maxBuckets +
+                ", configuration=" + configuration +
+                '}';
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.local;
+
+import com.github.bucket4j.AbstractBucket;
+import com.github.bucket4j.Bandwidth;
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.BucketState;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.github.bucket4j.BucketExceptions.negativeSpinAttempts;
+
+/**
+ * Local bucket which mutates single instance of state under exclusive lock.
+ * <p>
+ * In opposite to {@link LockFreeBucket} failed attempt to update state does not lead to recalculation of whole state,
+ * so this implementation works better when bucket is configured with several bandwidths and is accessed by many threads concurrently.
+ * Waiting for lock can be preceded by several non-blocking attempts to acquire the lock,
+ * which helps to avoid parking of thread when lock is held for very short time.
+ */
+public class LockBasedBucket extends AbstractBucket {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int spinAttemptsBeforePark;
+    private final BucketState state;
+
+    public LockBasedBucket(BucketConfiguration configuration) {
+        this(configuration, 0);
+    }
+
+    public LockBasedBucket(BucketConfiguration configuration, int spinAttemptsBeforePark) {
+        super(configuration);
+        if (spinAttemptsBeforePark < 0) {
+            throw negativeSpinAttempts(spinAttemptsBeforePark);
+        }
+        this.spinAttemptsBeforePark = spinAttemptsBeforePark;
+        this.state = BucketState.createInitialState(configuration);
+    }
+
+    @Override
+    protected long consumeAsMuchAsPossibleImpl(long limit) {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        long currentTime = configuration.getTimeMeter().currentTime();
+
+        lock();
+        try {
+            state.refill(bandwidths, currentTime);
+            long availableToConsume = state.getAvailableTokens(bandwidths);
+            long toConsume = Math.min(limit, availableToConsume);
+            if (toConsume <= 0) {
+                return 0;
+            }
+            state.consume(bandwidths, toConsume);
+            return toConsume;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    protected boolean tryConsumeImpl(long tokensToConsume) {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        long currentTime = configuration.getTimeMeter().currentTime();
+
+        lock();
+        try {
+            state.refill(bandwidths, currentTime);
+            long availableToConsume = state.getAvailableTokens(bandwidths);
+            if (tokensToConsume > availableToConsume) {
+                return false;
+            }
+            state.consume(bandwidths, tokensToConsume);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    protected void addTokensImpl(long tokensToAdd) {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        long currentTime = configuration.getTimeMeter().currentTime();
+
+        lock();
+        try {
+            state.refill(bandwidths, currentTime);
+            state.addTokens(bandwidths, tokensToAdd, currentTime);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tokens are reserved under the lock, so thread does not compete for the lock after wake-up and sleeps outside of the lock.
+     * Reserved tokens are returned to the bucket when waiting thread is interrupted.
+     */
+    @Override
+    protected boolean consumeOrAwaitImpl(long tokensToConsume, long waitIfBusyTimeLimit) throws InterruptedException {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        long currentTime = configuration.getTimeMeter().currentTime();
+
+        long timeToSleep;
+        lock();
+        try {
+            state.refill(bandwidths, currentTime);
+            timeToSleep = state.reserveAndCalculateTimeToSleep(bandwidths, currentTime, tokensToConsume, waitIfBusyTimeLimit);
+        } finally {
+            lock.unlock();
+        }
+
+        if (timeToSleep == Long.MAX_VALUE) {
+            return false;
+        }
+        if (timeToSleep > 0) {
+            sleepUntilReservedTokensRefilled(tokensToConsume, currentTime, timeToSleep);
+        }
+        return true;
+    }
+
+    @Override
+    public BucketState createSnapshot() {
+        lock();
+        try {
+            return state.clone();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void lock() {
+        for (int i = 0; i < spinAttemptsBeforePark; i++) {
+            if (lock.tryLock()) {
+                return;
+            }
+        }
+        lock.lock();
+    }
+
+    @Override
+    public String toString() {
+        return "LockBasedBucket{" +
+                "state=" + createSnapshot() +
+                ", spinAttemptsBeforePark=" + spinAttemptsBeforePark +
+                ", configuration=" + configuration +
+                '}';
+    }
+
+}
@@ -21,10 +21,23 @@ import com.github.bucket4j.Bandwidth;
 import com.github.bucket4j.BucketConfiguration;
 import com.github.bucket4j.BucketState;
 
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class LockFreeBucket extends AbstractBucket {
 
+    /**
+     * Per-thread copies of state, indexed by state size, which are used for speculative computations.
+     * Scratch state stays with the thread while attempts are rejected and is handed over to the bucket only after successful commit,
+     * so rejected attempts do not allocate anything.
+     */
+    private static final ThreadLocal<BucketState[]> SCRATCH_STATES = new ThreadLocal<BucketState[]>() {
+        @Override
+        protected BucketState[] initialValue() {
+            return new BucketState[8];
+        }
+    };
+
     private final AtomicReference<BucketState> stateReference;
     private final BucketConfiguration configuration;
 
@@ -37,8 +50,9 @@ public class LockFreeBucket extends AbstractBucket {
 
     @Override
     protected long consumeAsMuchAsPossibleImpl(long limit) {
+        BucketState[] scratchStates = scratchStates();
         BucketState previousState = stateReference.get();
-        BucketState newState = previousState.clone();
+        BucketState newState = copyToScratch(scratchStates, previousState);
         Bandwidth[] bandwidths = configuration.getBandwidths();
         long currentTime = configuration.getTimeMeter().currentTime();
 
@@ -46,11 +60,12 @@ public class LockFreeBucket extends AbstractBucket {
             newState.refill(bandwidths, currentTime);
             long availableToConsume = newState.getAvailableTokens(bandwidths);
             long toConsume = Math.min(limit, availableToConsume);
-            if (toConsume == 0) {
+            if (toConsume <= 0) {
                 return 0;
             }
             newState.consume(bandwidths, toConsume);
             if (stateReference.compareAndSet(previousState, newState)) {
+                releaseScratch(scratchStates);
                 return toConsume;
             } else {
                 previousState = stateReference.get();
@@ -61,8 +76,9 @@ public class LockFreeBucket extends AbstractBucket {
 
     @Override
     protected boolean tryConsumeImpl(long tokensToConsume) {
+        BucketState[] scratchStates = scratchStates();
         BucketState previousState = stateReference.get();
-        BucketState newState = previousState.clone();
+        BucketState newState = copyToScratch(scratchStates, previousState);
         Bandwidth[] bandwidths = configuration.getBandwidths();
         long currentTime = configuration.getTimeMeter().currentTime();
 
@@ -74,6 +90,7 @@ public class LockFreeBucket extends AbstractBucket {
             }
             newState.consume(bandwidths, tokensToConsume);
             if (stateReference.compareAndSet(previousState, newState)) {
+                releaseScratch(scratchStates);
                 return true;
             } else {
                 previousState = stateReference.get();
@@ -83,53 +100,81 @@ public class LockFreeBucket extends AbstractBucket {
     }
 
     @Override
-    protected boolean consumeOrAwaitImpl(long tokensToConsume, long waitIfBusyTimeLimit) throws InterruptedException {
-        Bandwidth[] bandwidths = configuration.getBandwidths();
-        boolean isWaitingLimited = waitIfBusyTimeLimit > 0;
-
-        final long methodStartTime = configuration.getTimeMeter().currentTime();
-        long currentTime = methodStartTime;
-        long methodDuration = 0;
-        boolean isFirstCycle = true;
-
+    protected void addTokensImpl(long tokensToAdd) {
+        BucketState[] scratchStates = scratchStates();
         BucketState previousState = stateReference.get();
-        BucketState newState = previousState.clone();
+        BucketState newState = copyToScratch(scratchStates, previousState);
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        long currentTime = configuration.getTimeMeter().currentTime();
 
         while (true) {
-            if (isFirstCycle) {
-                isFirstCycle = false;
+            newState.refill(bandwidths, currentTime);
+            newState.addTokens(bandwidths, tokensToAdd, currentTime);
+            if (stateReference.compareAndSet(previousState, newState)) {
+                releaseScratch(scratchStates);
+                return;
             } else {
-                currentTime = configuration.getTimeMeter().currentTime();
-                methodDuration = currentTime - methodStartTime;
-                if (isWaitingLimited && methodDuration >= waitIfBusyTimeLimit) {
-                    return false;
-                }
                 previousState = stateReference.get();
                 newState.copyState(previousState);
             }
+        }
+    }
+
+    /**
+     * Tokens are reserved before waiting, so thread sleeps until reserved tokens are refilled and does not compete with other threads after wake-up.
+     * Reserved tokens are returned to the bucket when waiting thread is interrupted.
+     */
+    @Override
+    protected boolean consumeOrAwaitImpl(long tokensToConsume, long waitIfBusyTimeLimit) throws InterruptedException {
+        BucketState[] scratchStates = scratchStates();
+        BucketState previousState = stateReference.get();
+        BucketState newState = copyToScratch(scratchStates, previousState);
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        long currentTime = configuration.getTimeMeter().currentTime();
 
+        while (true) {
             newState.refill(bandwidths, currentTime);
-            long timeToCloseDeficit = newState.delayAfterWillBePossibleToConsume(bandwidths, currentTime, tokensToConsume);
-            if (timeToCloseDeficit == Long.MAX_VALUE) {
+            long timeToSleep = newState.reserveAndCalculateTimeToSleep(bandwidths, currentTime, tokensToConsume, waitIfBusyTimeLimit);
+            if (timeToSleep == Long.MAX_VALUE) {
                 return false;
             }
-            if (timeToCloseDeficit == 0) {
-                newState.consume(bandwidths, tokensToConsume);
-                if (stateReference.compareAndSet(previousState, newState)) {
-                    return true;
-                } else {
-                    continue;
+            if (stateReference.compareAndSet(previousState, newState)) {
+                releaseScratch(scratchStates);
+                if (timeToSleep > 0) {
+                    sleepUntilReservedTokensRefilled(tokensToConsume, currentTime, timeToSleep);
                 }
+                return true;
+            } else {
+                previousState = stateReference.get();
+                newState.copyState(previousState);
             }
+        }
+    }
 
-            if (isWaitingLimited) {
-                long sleepingTimeLimit = waitIfBusyTimeLimit - methodDuration;
-                if (timeToCloseDeficit >= sleepingTimeLimit) {
-                    return false;
-                }
-            }
-            configuration.getTimeMeter().sleep(timeToCloseDeficit);
+    private BucketState[] scratchStates() {
+        BucketState[] scratchStates = SCRATCH_STATES.get();
+        int stateSize = configuration.getStateSize();
+        if (stateSize >= scratchStates.length) {
+            scratchStates = Arrays.copyOf(scratchStates, stateSize + 1);
+            SCRATCH_STATES.set(scratchStates);
+        }
+        return scratchStates;
+    }
+
+    private BucketState copyToScratch(BucketState[] scratchStates, BucketState state) {
+        BucketState scratch = scratchStates[configuration.getStateSize()];
+        if (scratch == null) {
+            scratch = state.clone();
+            scratchStates[configuration.getStateSize()] = scratch;
+        } else {
+            scratch.copyState(state);
         }
+        return scratch;
+    }
+
+    private void releaseScratch(BucketState[] scratchStates) {
+        // scratch state has been published inside stateReference, so it can not be reused anymore
+        scratchStates[configuration.getStateSize()] = null;
     }
 
     @Override
@@ -0,0 +1,407 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.local;
+
+import com.github.bucket4j.Bandwidth;
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.BucketState;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.BitSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.github.bucket4j.BucketExceptions.*;
+
+/**
+ * Table of buckets with similar configuration identified by {@code long} keys, state of buckets is stored outside of java heap.
+ * <p>
+ * Each key occupies fixed size slot which consists from key itself, time of last refill and state of bandwidths
+ * as described by {@link BucketConfiguration#getStateSize()}, so memory consumption does not depend from count of keys in java heap
+ * and buckets do not produce any garbage. The single {@link BucketConfiguration} is shared between all keys.
+ * <p>
+ * Slots are distributed between segments, each segment is an open addressing hash table in direct {@link ByteBuffer} protected by own lock.
+ * Segment is locked only for the time of arithmetic on single slot, so threads which access different segments do not contend.
+ * <p>
+ * Table has fixed capacity which is specified at construction time. Slots which were refilled up to initial capacity are indistinguishable
+ * from absent, so they are reclaimed by {@link #cleanUp()} and automatically when segment has no free slot for new key.
+ * {@link IllegalStateException} is thrown when there is no free slot even after reclaiming.
+ */
+public class OffHeapBucketTable {
+
+    public static final int DEFAULT_SEGMENT_COUNT = 64;
+
+    private static final double LOAD_FACTOR = 0.75;
+
+    private final BucketConfiguration configuration;
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final int maxKeys;
+
+    public OffHeapBucketTable(BucketConfiguration configuration, int maxKeys) {
+        this(configuration, maxKeys, DEFAULT_SEGMENT_COUNT);
+    }
+
+    /**
+     * @param configuration configuration of buckets
+     * @param maxKeys count of keys for which table should have enough space, should be positive
+     * @param segmentCount count of independently locked segments, will be rounded up to power of two, should be positive
+     */
+    public OffHeapBucketTable(BucketConfiguration configuration, int maxKeys, int segmentCount) {
+        if (maxKeys <= 0) {
+            throw nonPositiveMaxBuckets(maxKeys);
+        }
+        if (segmentCount <= 0) {
+            throw nonPositiveSegmentCount(segmentCount);
+        }
+        this.configuration = configuration;
+        this.maxKeys = maxKeys;
+
+        int roundedSegmentCount = ceilingPowerOfTwo(segmentCount);
+        int keysPerSegment = (maxKeys + roundedSegmentCount - 1) / roundedSegmentCount;
+        int slotsPerSegment = ceilingPowerOfTwo((int) Math.ceil(keysPerSegment / LOAD_FACTOR));
+        // key, time of last refill, state of bandwidths
+        int slotSize = (2 + configuration.getStateSize()) * 8;
+        long segmentSizeBytes = (long) slotsPerSegment * slotSize;
+        if (segmentSizeBytes > Integer.MAX_VALUE) {
+            throw tooLargeSegment(segmentSizeBytes, roundedSegmentCount);
+        }
+
+        this.segmentMask = roundedSegmentCount - 1;
+        this.segments = new Segment[roundedSegmentCount];
+        for (int i = 0; i < roundedSegmentCount; i++) {
+            segments[i] = new Segment(configuration, slotsPerSegment, slotSize);
+        }
+    }
+
+    /**
+     * @see com.github.bucket4j.Bucket#tryConsumeSingleToken()
+     */
+    public boolean tryConsumeSingleToken(long key) {
+        return tryConsumeImpl(key, 1);
+    }
+
+    /**
+     * @see com.github.bucket4j.Bucket#tryConsume(long)
+     */
+    public boolean tryConsume(long key, long tokensToConsume) {
+        if (tokensToConsume <= 0) {
+            throw nonPositiveTokensToConsume(tokensToConsume);
+        }
+        return tryConsumeImpl(key, tokensToConsume);
+    }
+
+    /**
+     * @see com.github.bucket4j.Bucket#consumeAsMuchAsPossible()
+     */
+    public long consumeAsMuchAsPossible(long key) {
+        return consumeAsMuchAsPossibleImpl(key, Long.MAX_VALUE);
+    }
+
+    /**
+     * @see com.github.bucket4j.Bucket#consumeAsMuchAsPossible(long)
+     */
+    public long consumeAsMuchAsPossible(long key, long limit) {
+        if (limit <= 0) {
+            throw nonPositiveTokensToConsume(limit);
+        }
+        return consumeAsMuchAsPossibleImpl(key, limit);
+    }
+
+    /**
+     * @return snapshot of bucket state associated with key, or {@code null} if there is no slot for key in the table
+     */
+    public BucketState createSnapshot(long key) {
+        long hash = hash(key);
+        Segment segment = segmentFor(hash);
+        segment.lock();
+        try {
+            SlotState state = segment.find(key, hash);
+            return state == null ? null : state.clone();
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * @return count of occupied slots
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            segment.lock();
+            try {
+                size += segment.size;
+            } finally {
+                segment.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Reclaims slots which were refilled up to initial capacity.
+     *
+     * @return count of reclaimed slots
+     */
+    public int cleanUp() {
+        long currentTime = configuration.getTimeMeter().currentTime();
+        int reclaimed = 0;
+        for (Segment segment : segments) {
+            segment.lock();
+            try {
+                reclaimed += segment.cleanUp(currentTime);
+            } finally {
+                segment.unlock();
+            }
+        }
+        return reclaimed;
+    }
+
+    public BucketConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    private boolean tryConsumeImpl(long key, long tokensToConsume) {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        long currentTime = configuration.getTimeMeter().currentTime();
+        long hash = hash(key);
+        Segment segment = segmentFor(hash);
+        segment.lock();
+        try {
+            SlotState state = segment.findOrCreate(key, hash, currentTime);
+            state.refill(bandwidths, currentTime);
+            long availableToConsume = state.getAvailableTokens(bandwidths);
+            if (tokensToConsume > availableToConsume) {
+                return false;
+            }
+            state.consume(bandwidths, tokensToConsume);
+            segment.store(state);
+            return true;
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    private long consumeAsMuchAsPossibleImpl(long key, long limit) {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        long currentTime = configuration.getTimeMeter().currentTime();
+        long hash = hash(key);
+        Segment segment = segmentFor(hash);
+        segment.lock();
+        try {
+            SlotState state = segment.findOrCreate(key, hash, currentTime);
+            state.refill(bandwidths, currentTime);
+            long availableToConsume = state.getAvailableTokens(bandwidths);
+            long toConsume = Math.min(limit, availableToConsume);
+            if (toConsume <= 0) {
+                return 0;
+            }
+            state.consume(bandwidths, toConsume);
+            segment.store(state);
+            return toConsume;
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> 32) & segmentMask];
+    }
+
+    // finalizer of MurmurHash3, sequential keys should be spread between segments and slots
+    private static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        int highestOneBit = Integer.highestOneBit(Math.max(1, value));
+        return highestOneBit == value ? value : highestOneBit << 1;
+    }
+
+    private static final class Segment extends ReentrantLock {
+
+        private final BucketConfiguration configuration;
+        private final ByteBuffer buffer;
+        private final BitSet occupiedSlots;
+        private final int slotMask;
+        private final int slotSize;
+        private final int maxSize;
+        private final SlotState scratchState;
+        private int size;
+        // position of slot which is loaded into scratchState
+        private int scratchPosition;
+
+        private Segment(BucketConfiguration configuration, int slotCount, int slotSize) {
+            this.configuration = configuration;
+            this.buffer = ByteBuffer.allocateDirect(slotCount * slotSize).order(ByteOrder.nativeOrder());
+            this.occupiedSlots = new BitSet(slotCount);
+            this.slotMask = slotCount - 1;
+            this.slotSize = slotSize;
+            this.maxSize = Math.max(1, (int) (slotCount * LOAD_FACTOR));
+            this.scratchState = new SlotState(configuration.getStateSize());
+        }
+
+        private SlotState find(long key, long hash) {
+            int index = (int) hash & slotMask;
+            while (occupiedSlots.get(index)) {
+                int position = index * slotSize;
+                if (buffer.getLong(position) == key) {
+                    return load(position);
+                }
+                index = (index + 1) & slotMask;
+            }
+            return null;
+        }
+
+        private SlotState findOrCreate(long key, long hash, long currentTime) {
+            SlotState state = find(key, hash);
+            if (state != null) {
+                return state;
+            }
+            if (size >= maxSize && cleanUp(currentTime) == 0) {
+                throw offHeapTableOverflow(size);
+            }
+
+            int index = (int) hash & slotMask;
+            while (occupiedSlots.get(index)) {
+                index = (index + 1) & slotMask;
+            }
+            occupiedSlots.set(index);
+            size++;
+            int position = index * slotSize;
+            buffer.putLong(position, key);
+
+            state = scratchState;
+            for (Bandwidth bandwidth : configuration.getBandwidths()) {
+                bandwidth.setupInitialState(state);
+            }
+            state.setRefillTime(currentTime);
+            scratchPosition = position;
+            store(state);
+            return state;
+        }
+
+        private SlotState load(int position) {
+            scratchPosition = position;
+            scratchState.load(buffer, position + 8);
+            return scratchState;
+        }
+
+        private void store(SlotState state) {
+            state.store(buffer, scratchPosition + 8);
+        }
+
+        private int cleanUp(long currentTime) {
+            Bandwidth[] bandwidths = configuration.getBandwidths();
+            int reclaimed = 0;
+            for (int index = 0; index <= slotMask; index++) {
+                // slot is rechecked after removal, because removal can shift another key into it
+                while (occupiedSlots.get(index) && isRefilledToInitialCapacity(load(index * slotSize), bandwidths, currentTime)) {
+                    remove(index);
+                    reclaimed++;
+                }
+            }
+            return reclaimed;
+        }
+
+        // backward shift deletion, keeps probe sequences of remaining keys unbroken without tombstones
+        private void remove(int index) {
+            int free = index;
+            int current = index;
+            while (true) {
+                current = (current + 1) & slotMask;
+                if (!occupiedSlots.get(current)) {
+                    break;
+                }
+                int home = (int) hash(buffer.getLong(current * slotSize)) & slotMask;
+                boolean reachableWithoutFreeSlot = free <= current
+                        ? free < home && home <= current
+                        : free < home || home <= current;
+                if (reachableWithoutFreeSlot) {
+                    continue;
+                }
+                copySlot(current, free);
+                free = current;
+            }
+            occupiedSlots.clear(free);
+            size--;
+        }
+
+        private void copySlot(int fromIndex, int toIndex) {
+            int from = fromIndex * slotSize;
+            int to = toIndex * slotSize;
+            for (int offset = 0; offset < slotSize; offset += 8) {
+                buffer.putLong(to + offset, buffer.getLong(from + offset));
+            }
+        }
+
+        private static boolean isRefilledToInitialCapacity(SlotState state, Bandwidth[] bandwidths, long currentTime) {
+            state.refill(bandwidths, currentTime);
+            for (Bandwidth bandwidth : bandwidths) {
+                if (bandwidth.getCurrentSize(state) < bandwidth.getInitialCapacity()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+    private static final class SlotState extends BucketState {
+
+        private SlotState(int sizeOfBandwidthsState) {
+            super(sizeOfBandwidthsState);
+        }
+
+        private void setRefillTime(long refillTime) {
+            state[0] = refillTime;
+        }
+
+        private void load(ByteBuffer buffer, int position) {
+            for (int i = 0; i < state.length; i++) {
+                state[i] = buffer.getLong(position + i * 8);
+            }
+        }
+
+        private void store(ByteBuffer buffer, int position) {
+            for (int i = 0; i < state.length; i++) {
+                buffer.putLong(position + i * 8, state[i]);
+            }
+        }
+
+        @Override
+        public BucketState clone() {
+            return new BucketState(createSnapshot());
+        }
+
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapBucketTable{" +
+                "maxKeys=" + maxKeys +
+                ", segmentCount=" + segments.length +
+                ", configuration=" + configuration +
+                '}';
+    }
+
+}
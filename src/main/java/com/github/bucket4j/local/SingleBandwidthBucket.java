@@ -0,0 +1,235 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.local;
+
+import com.github.bucket4j.AbstractBucket;
+import com.github.bucket4j.Bandwidth;
+import com.github.bucket4j.BandwidthAdjuster;
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.BucketState;
+import com.github.bucket4j.TimeMeter;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Lock-free bucket specialized for the most popular configuration: exactly one limited bandwidth with immutable capacity.
+ * <p>
+ * Whole state of bucket is kept inside single primitive field, so consumption does not require any allocation or indirection.
+ * Tokens are tracked in scaled units {@code tokens * period + roundingError}, which exactly matches arithmetic of {@link Bandwidth},
+ * and the state is stored as the virtual moment(in units of {@code capacity * time}) when bucket was or will be empty.
+ * <p>
+ * Waiting consumers reserve tokens by moving this moment into the future, so bucket goes into debt which is paid off by subsequent refills.
+ * <p>
+ * After idle periods longer than {@code Long.MAX_VALUE / capacity} time units the scaled clock wraps around,
+ * in rare case it can make bucket to look empty or in debt, but never to look fuller than its capacity.
+ *
+ * @see #isApplicable(BucketConfiguration)
+ */
+public class SingleBandwidthBucket extends AbstractBucket {
+
+    private static final AtomicLongFieldUpdater<SingleBandwidthBucket> EMPTY_TIME_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(SingleBandwidthBucket.class, "emptyTime");
+    private static final AtomicLongFieldUpdater<SingleBandwidthBucket> LAST_UPDATE_TIME_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(SingleBandwidthBucket.class, "lastUpdateTime");
+
+    // half of scaled clock range is reserved for debt, the rest is used to detect wrapping around after long idle periods
+    private static final long MAX_DEBT_SIZE = Long.MAX_VALUE / 2;
+
+    private final TimeMeter timeMeter;
+    private final long capacity;
+    private final long period;
+    private final long fullSize;
+
+    private volatile long emptyTime;
+
+    // written lazily after each successful update, it is used only by snapshots
+    private volatile long lastUpdateTime;
+
+    public SingleBandwidthBucket(BucketConfiguration configuration) {
+        super(configuration);
+        if (!isApplicable(configuration)) {
+            throw new IllegalArgumentException("Configuration " + configuration + " is not applicable for " + SingleBandwidthBucket.class.getSimpleName());
+        }
+        Bandwidth bandwidth = configuration.getBandwidth(0);
+        this.timeMeter = configuration.getTimeMeter();
+        this.period = bandwidth.getPeriod();
+        this.capacity = bandwidth.getMaxCapacity(0);
+        this.fullSize = capacity * period;
+        this.lastUpdateTime = timeMeter.currentTime();
+        this.emptyTime = capacity * lastUpdateTime - bandwidth.getInitialCapacity() * period;
+    }
+
+    /**
+     * Checks that configuration can be served by {@link SingleBandwidthBucket}:
+     * exactly one limited bandwidth with {@link BandwidthAdjuster.ImmutableCapacity},
+     * initial capacity which does not exceed capacity, and {@code capacity * period} which fits into long.
+     *
+     * @param configuration configuration to check
+     *
+     * @return true if configuration can be served by {@link SingleBandwidthBucket}
+     */
+    public static boolean isApplicable(BucketConfiguration configuration) {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        if (bandwidths.length != 1) {
+            return false;
+        }
+        Bandwidth bandwidth = bandwidths[0];
+        if (bandwidth.isGuaranteed() || !(bandwidth.getAdjuster() instanceof BandwidthAdjuster.ImmutableCapacity)) {
+            return false;
+        }
+        long capacity = bandwidth.getMaxCapacity(0);
+        return bandwidth.getInitialCapacity() <= capacity && capacity <= Long.MAX_VALUE / bandwidth.getPeriod();
+    }
+
+    @Override
+    protected long consumeAsMuchAsPossibleImpl(long limit) {
+        while (true) {
+            long previousEmptyTime = emptyTime;
+            long currentTime = timeMeter.currentTime();
+            long scaledTime = capacity * currentTime;
+            long availableSize = availableSize(scaledTime, previousEmptyTime);
+            long toConsume = Math.min(limit, availableSize / period);
+            if (toConsume == 0) {
+                return 0;
+            }
+            long newEmptyTime = scaledTime - (availableSize - toConsume * period);
+            if (EMPTY_TIME_UPDATER.compareAndSet(this, previousEmptyTime, newEmptyTime)) {
+                LAST_UPDATE_TIME_UPDATER.lazySet(this, currentTime);
+                return toConsume;
+            }
+        }
+    }
+
+    @Override
+    protected boolean tryConsumeImpl(long tokensToConsume) {
+        if (tokensToConsume > capacity) {
+            return false;
+        }
+        long sizeToConsume = tokensToConsume * period;
+        while (true) {
+            long previousEmptyTime = emptyTime;
+            long currentTime = timeMeter.currentTime();
+            long scaledTime = capacity * currentTime;
+            long availableSize = availableSize(scaledTime, previousEmptyTime);
+            if (sizeToConsume > availableSize) {
+                return false;
+            }
+            long newEmptyTime = scaledTime - (availableSize - sizeToConsume);
+            if (EMPTY_TIME_UPDATER.compareAndSet(this, previousEmptyTime, newEmptyTime)) {
+                LAST_UPDATE_TIME_UPDATER.lazySet(this, currentTime);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Tokens are reserved by moving the moment when bucket becomes empty into the future,
+     * so thread sleeps until reserved tokens are refilled and does not compete with other threads after wake-up.
+     * Reserved tokens are returned to the bucket when waiting thread is interrupted.
+     */
+    @Override
+    protected boolean consumeOrAwaitImpl(long tokensToConsume, long waitIfBusyTimeLimit) throws InterruptedException {
+        if (tokensToConsume > capacity) {
+            return false;
+        }
+        long sizeToConsume = tokensToConsume * period;
+        boolean isWaitingLimited = waitIfBusyTimeLimit > 0;
+
+        while (true) {
+            long previousEmptyTime = emptyTime;
+            long currentTime = timeMeter.currentTime();
+            long scaledTime = capacity * currentTime;
+            long size = size(scaledTime, previousEmptyTime);
+            long newSize = size - sizeToConsume;
+            long timeToSleep = newSize >= 0 ? 0 : (capacity - 1 - newSize) / capacity;
+            if (isWaitingLimited && timeToSleep >= waitIfBusyTimeLimit) {
+                return false;
+            }
+            if (newSize < -MAX_DEBT_SIZE) {
+                // debt can not be distinguished from wrapped scaled clock anymore, wait until already reserved tokens are refilled
+                sleepUntilReservedTokensRefilled(currentTime, (capacity - 1 - size) / capacity);
+                continue;
+            }
+            long newEmptyTime = scaledTime - newSize;
+            if (EMPTY_TIME_UPDATER.compareAndSet(this, previousEmptyTime, newEmptyTime)) {
+                LAST_UPDATE_TIME_UPDATER.lazySet(this, currentTime);
+                if (timeToSleep > 0) {
+                    sleepUntilReservedTokensRefilled(tokensToConsume, currentTime, timeToSleep);
+                }
+                return true;
+            }
+        }
+    }
+
+    @Override
+    protected void addTokensImpl(long tokensToAdd) {
+        while (true) {
+            long previousEmptyTime = emptyTime;
+            long currentTime = timeMeter.currentTime();
+            long scaledTime = capacity * currentTime;
+            long size = size(scaledTime, previousEmptyTime);
+            // added tokens pay off the debt first
+            long missingTokens = capacity - Math.floorDiv(size, period);
+            long newSize = tokensToAdd >= missingTokens ? fullSize : Math.min(fullSize, size + tokensToAdd * period);
+            long newEmptyTime = scaledTime - newSize;
+            if (EMPTY_TIME_UPDATER.compareAndSet(this, previousEmptyTime, newEmptyTime)) {
+                LAST_UPDATE_TIME_UPDATER.lazySet(this, currentTime);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Same as other buckets, snapshot is not refilled to current time, it describes the state at the moment of last update.
+     * Moment of update is written after the state itself, so snapshot which races with concurrent update
+     * can describe the state either before or after this update at the moment of neighbouring update.
+     */
+    @Override
+    public BucketState createSnapshot() {
+        long snapshotEmptyTime = emptyTime;
+        long updateTime = lastUpdateTime;
+        long size = size(capacity * updateTime, snapshotEmptyTime);
+        long[] snapshot = new long[configuration.getStateSize() + 1];
+        snapshot[0] = updateTime;
+        snapshot[1 + Bandwidth.CURRENT_SIZE_OFFSET] = Math.floorDiv(size, period);
+        snapshot[1 + Bandwidth.ROUNDING_ERROR_OFFSET] = Math.floorMod(size, period);
+        return new BucketState(snapshot);
+    }
+
+    private long availableSize(long scaledTime, long emptyTime) {
+        long size = size(scaledTime, emptyTime);
+        return size > 0 ? size : 0;
+    }
+
+    private long size(long scaledTime, long emptyTime) {
+        long size = scaledTime - emptyTime;
+        if (size >= 0) {
+            return size > fullSize ? fullSize : size;
+        }
+        // negative value means either debt of reserved tokens, or that time was read before concurrent commit of other thread,
+        // or that scaled clock wrapped around after very long idle period
+        return size >= -MAX_DEBT_SIZE ? size : fullSize;
+    }
+
+    @Override
+    public String toString() {
+        return "SingleBandwidthBucket{" +
+                "state=" + createSnapshot() +
+                ", configuration=" + configuration +
+                '}';
+    }
+
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.local;
+
+import com.github.bucket4j.AbstractBucket;
+import com.github.bucket4j.Bandwidth;
+import com.github.bucket4j.BandwidthAdjuster;
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.BucketState;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import static com.github.bucket4j.BucketExceptions.guaranteedBandwidthNotSupportedByStripedBucket;
+import static com.github.bucket4j.BucketExceptions.nonPositiveStripeCount;
+
+/**
+ * Local bucket which partitions tokens between several independent stripes in order to reduce CAS contention,
+ * in same manner as {@link java.util.concurrent.atomic.LongAdder} does for counters.
+ * <p>
+ * Each stripe holds own share of capacity and refill rate for each configured bandwidth, shares of all stripes are summed exactly to configured values.
+ * Thread consumes from own stripe and borrows tokens from sibling stripes when own stripe runs dry.
+ * <p>
+ * Guarantees and tolerances:
+ * <ul>
+ *     <li>bucket never allows to consume more tokens than configured bandwidths allow, because shares of stripes are never exceeded,
+ *     guaranteed bandwidths are not supported because guarantee of single stripe is not bounded by limits of sibling stripes;</li>
+ *     <li>each stripe accumulates own fractional part of refill, so after exhaustion first tokens can appear up to {@code stripeCount} times later
+ *     than in non-striped bucket and up to {@code stripeCount - 1} tokens per bandwidth can be temporarily unavailable,
+ *     the long-term rate is not affected;</li>
+ *     <li>tokens which were borrowed during unsuccessful attempt to consume are returned back, tokens which do not fit into capacity
+ *     of stripe at moment of returning are moved to sibling stripes which have room, so tokens are lost only when whole bucket is full,
+ *     the same is applied to added tokens;</li>
+ *     <li>each stripe holds at least one token of each bandwidth, so count of stripes is reduced to the smallest capacity
+ *     of bandwidths at the moment of construction.</li>
+ * </ul>
+ */
+public class StripedBucket extends AbstractBucket {
+
+    private final Stripe[] stripes;
+
+    public StripedBucket(BucketConfiguration configuration, int stripeCount) {
+        super(configuration);
+        if (stripeCount <= 0) {
+            throw nonPositiveStripeCount(stripeCount);
+        }
+        long currentTime = configuration.getTimeMeter().currentTime();
+        for (Bandwidth bandwidth : configuration.getBandwidths()) {
+            if (bandwidth.isGuaranteed()) {
+                throw guaranteedBandwidthNotSupportedByStripedBucket();
+            }
+            // stripe without own tokens would force each consumer to borrow
+            stripeCount = (int) Math.max(1, Math.min(stripeCount, bandwidth.getMaxCapacity(currentTime)));
+        }
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe(createStripeBandwidths(configuration, i, stripeCount), configuration.getStateSize(), currentTime);
+        }
+    }
+
+    @Override
+    protected long consumeAsMuchAsPossibleImpl(long limit) {
+        long currentTime = configuration.getTimeMeter().currentTime();
+        int homeIndex = homeStripeIndex();
+        long consumed = 0;
+        for (int i = 0; i < stripes.length && consumed < limit; i++) {
+            consumed += stripes[(homeIndex + i) % stripes.length].consumeAsMuchAsPossible(limit - consumed, currentTime);
+        }
+        return consumed;
+    }
+
+    @Override
+    protected boolean tryConsumeImpl(long tokensToConsume) {
+        long currentTime = configuration.getTimeMeter().currentTime();
+        int homeIndex = homeStripeIndex();
+        if (stripes[homeIndex].tryConsume(tokensToConsume, currentTime)) {
+            return true;
+        }
+        if (stripes.length == 1) {
+            return false;
+        }
+
+        long[] borrowed = null;
+        long consumed = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            int index = (homeIndex + i) % stripes.length;
+            long borrowedFromStripe = stripes[index].consumeAsMuchAsPossible(tokensToConsume - consumed, currentTime);
+            if (borrowedFromStripe == 0) {
+                continue;
+            }
+            consumed += borrowedFromStripe;
+            if (consumed == tokensToConsume) {
+                return true;
+            }
+            if (borrowed == null) {
+                borrowed = new long[stripes.length];
+            }
+            borrowed[index] = borrowedFromStripe;
+        }
+
+        if (borrowed != null) {
+            long rejected = 0;
+            for (int i = 0; i < stripes.length; i++) {
+                if (borrowed[i] > 0) {
+                    rejected += borrowed[i] - stripes[i].addTokens(borrowed[i], currentTime);
+                }
+            }
+            addTokensToStripesWithRoom(rejected, homeIndex, currentTime);
+        }
+        return false;
+    }
+
+    /**
+     * Unlike other buckets, tokens are not reserved before waiting, thread sleeps until deficit is closed and then repeats the attempt.
+     * Reservation would put stripes into debt which is paid off only by refill share of indebted stripe,
+     * so each waiting consumer would block all threads whose home is indebted stripe, and large requests would have to indebt several stripes,
+     * which destroys the only purpose of striping. As consequence waiters are not served in order of arrival,
+     * and interrupted waiter does not hold any tokens.
+     */
+    @Override
+    protected boolean consumeOrAwaitImpl(long tokensToConsume, long waitIfBusyTimeLimit) throws InterruptedException {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        boolean isWaitingLimited = waitIfBusyTimeLimit > 0;
+        final long methodStartTime = configuration.getTimeMeter().currentTime();
+
+        while (true) {
+            if (tryConsumeImpl(tokensToConsume)) {
+                return true;
+            }
+
+            long currentTime = configuration.getTimeMeter().currentTime();
+            long methodDuration = currentTime - methodStartTime;
+            if (isWaitingLimited && methodDuration >= waitIfBusyTimeLimit) {
+                return false;
+            }
+
+            BucketState aggregatedState = createSnapshot(currentTime);
+            long timeToCloseDeficit = aggregatedState.delayAfterWillBePossibleToConsume(bandwidths, currentTime, tokensToConsume);
+            if (timeToCloseDeficit == Long.MAX_VALUE) {
+                return false;
+            }
+            // tokens are visible only when they are refilled on single stripe, so wait at least one time unit
+            timeToCloseDeficit = Math.max(timeToCloseDeficit, 1);
+            if (isWaitingLimited) {
+                long sleepingTimeLimit = waitIfBusyTimeLimit - methodDuration;
+                if (timeToCloseDeficit >= sleepingTimeLimit) {
+                    return false;
+                }
+            }
+            configuration.getTimeMeter().sleep(timeToCloseDeficit);
+        }
+    }
+
+    @Override
+    protected void addTokensImpl(long tokensToAdd) {
+        long currentTime = configuration.getTimeMeter().currentTime();
+        long rejected = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            long stripeShare = share(tokensToAdd, i, stripes.length);
+            if (stripeShare > 0) {
+                rejected += stripeShare - stripes[i].addTokens(stripeShare, currentTime);
+            }
+        }
+        addTokensToStripesWithRoom(rejected, homeStripeIndex(), currentTime);
+    }
+
+    private void addTokensToStripesWithRoom(long tokensToAdd, int firstIndex, long currentTime) {
+        for (int i = 0; i < stripes.length && tokensToAdd > 0; i++) {
+            tokensToAdd -= stripes[(firstIndex + i) % stripes.length].addTokens(tokensToAdd, currentTime);
+        }
+    }
+
+    /**
+     * @return state which is sum of states of all stripes refilled to current time
+     */
+    @Override
+    public BucketState createSnapshot() {
+        return createSnapshot(configuration.getTimeMeter().currentTime());
+    }
+
+    private BucketState createSnapshot(long currentTime) {
+        long[] aggregatedSnapshot = new long[configuration.getStateSize() + 1];
+        for (Stripe stripe : stripes) {
+            long[] stripeSnapshot = stripe.createSnapshot(currentTime);
+            for (int i = 1; i < aggregatedSnapshot.length; i++) {
+                aggregatedSnapshot[i] += stripeSnapshot[i];
+            }
+        }
+        aggregatedSnapshot[0] = currentTime;
+        return new BucketState(aggregatedSnapshot);
+    }
+
+    private int homeStripeIndex() {
+        return (int) (Thread.currentThread().getId() % stripes.length);
+    }
+
+    private static Bandwidth[] createStripeBandwidths(BucketConfiguration configuration, int stripeIndex, int stripeCount) {
+        Bandwidth[] bandwidths = configuration.getBandwidths();
+        Bandwidth[] stripeBandwidths = new Bandwidth[bandwidths.length];
+        int offset = 0;
+        for (int i = 0; i < bandwidths.length; i++) {
+            Bandwidth bandwidth = bandwidths[i];
+            BandwidthAdjuster adjuster = new StripeCapacity(bandwidth.getAdjuster(), stripeIndex, stripeCount);
+            long initialCapacity = share(bandwidth.getInitialCapacity(), stripeIndex, stripeCount);
+            stripeBandwidths[i] = new Bandwidth(offset, adjuster, initialCapacity, bandwidth.getPeriod(), bandwidth.isGuaranteed());
+            offset += bandwidth.sizeOfState();
+        }
+        return stripeBandwidths;
+    }
+
+    private static long share(long value, int stripeIndex, int stripeCount) {
+        return value / stripeCount + (stripeIndex < value % stripeCount ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return "StripedBucket{" +
+                "stripes=" + stripes.length +
+                ", state=" + createSnapshot() +
+                ", configuration=" + configuration +
+                '}';
+    }
+
+    private static final class StripeCapacity implements BandwidthAdjuster {
+
+        private final BandwidthAdjuster totalCapacity;
+        private final int stripeIndex;
+        private final int stripeCount;
+
+        private StripeCapacity(BandwidthAdjuster totalCapacity, int stripeIndex, int stripeCount) {
+            this.totalCapacity = totalCapacity;
+            this.stripeIndex = stripeIndex;
+            this.stripeCount = stripeCount;
+        }
+
+        @Override
+        public long getCapacity(long currentTime) {
+            return share(totalCapacity.getCapacity(currentTime), stripeIndex, stripeCount);
+        }
+
+        @Override
+        public String toString() {
+            return "StripeCapacity{" +
+                    "totalCapacity=" + totalCapacity +
+                    ", stripeIndex=" + stripeIndex +
+                    ", stripeCount=" + stripeCount +
+                    '}';
+        }
+    }
+
+    // paddings protect stripes from false sharing of cache lines
+    private static class StripeLeftPadding {
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    private static class StripeValue extends StripeLeftPadding {
+        volatile BucketState state;
+    }
+
+    private static final class Stripe extends StripeValue {
+
+        private static final AtomicReferenceFieldUpdater<StripeValue, BucketState> STATE_UPDATER =
+                AtomicReferenceFieldUpdater.newUpdater(StripeValue.class, BucketState.class, "state");
+
+        long q1, q2, q3, q4, q5, q6, q7;
+
+        private final Bandwidth[] bandwidths;
+
+        private Stripe(Bandwidth[] bandwidths, int stateSize, long currentTime) {
+            this.bandwidths = bandwidths;
+            long[] initialSnapshot = new long[stateSize + 1];
+            initialSnapshot[0] = currentTime;
+            BucketState initialState = new BucketState(initialSnapshot);
+            for (Bandwidth bandwidth : bandwidths) {
+                bandwidth.setupInitialState(initialState);
+            }
+            this.state = initialState;
+        }
+
+        boolean tryConsume(long tokensToConsume, long currentTime) {
+            BucketState previousState = state;
+            BucketState newState = previousState.clone();
+            while (true) {
+                newState.refill(bandwidths, currentTime);
+                if (tokensToConsume > newState.getAvailableTokens(bandwidths)) {
+                    return false;
+                }
+                newState.consume(bandwidths, tokensToConsume);
+                if (STATE_UPDATER.compareAndSet(this, previousState, newState)) {
+                    return true;
+                }
+                previousState = state;
+                newState.copyState(previousState);
+            }
+        }
+
+        long consumeAsMuchAsPossible(long limit, long currentTime) {
+            BucketState previousState = state;
+            BucketState newState = previousState.clone();
+            while (true) {
+                newState.refill(bandwidths, currentTime);
+                long toConsume = Math.min(limit, newState.getAvailableTokens(bandwidths));
+                if (toConsume <= 0) {
+                    return 0;
+                }
+                newState.consume(bandwidths, toConsume);
+                if (STATE_UPDATER.compareAndSet(this, previousState, newState)) {
+                    return toConsume;
+                }
+                previousState = state;
+                newState.copyState(previousState);
+            }
+        }
+
+        /**
+         * @return count of added tokens, which is limited by room of stripe
+         */
+        long addTokens(long tokensToAdd, long currentTime) {
+            BucketState previousState = state;
+            BucketState newState = previousState.clone();
+            while (true) {
+                newState.refill(bandwidths, currentTime);
+                long toAdd = tokensToAdd;
+                for (Bandwidth bandwidth : bandwidths) {
+                    toAdd = Math.min(toAdd, bandwidth.getMaxCapacity(currentTime) - bandwidth.getCurrentSize(newState));
+                }
+                if (toAdd <= 0) {
+                    return 0;
+                }
+                newState.addTokens(bandwidths, toAdd, currentTime);
+                if (STATE_UPDATER.compareAndSet(this, previousState, newState)) {
+                    return toAdd;
+                }
+                previousState = state;
+                newState.copyState(previousState);
+            }
+        }
+
+        long[] createSnapshot(long currentTime) {
+            BucketState snapshot = state.clone();
+            snapshot.refill(bandwidths, currentTime);
+            return snapshot.createSnapshot();
+        }
+
+    }
+
+}
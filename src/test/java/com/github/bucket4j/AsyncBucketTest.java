@@ -0,0 +1,187 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j;
+
+import com.github.bucket4j.grid.GridCommand;
+import com.github.bucket4j.grid.GridProxy;
+import com.github.bucket4j.mock.BucketType;
+import com.github.bucket4j.mock.GridProxyMock;
+import com.github.bucket4j.mock.TimeMeterMock;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncBucketTest {
+
+    private final ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(1);
+
+    @After
+    public void shutdownScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void asyncViewShouldHaveSameSemanticAsBlockingApi() throws Exception {
+        for (BucketType type : BucketType.values()) {
+            TimeMeterMock meter = new TimeMeterMock(0);
+            BucketBuilder builder = Buckets.withCustomTimePrecision(meter)
+                    .withLimitedBandwidth(10, NANOSECONDS, 100, 10);
+            AsyncBucket bucket = type.createBucket(builder).asAsync();
+
+            assertTrue(type.toString(), bucket.tryConsumeSingleToken().get());
+            assertTrue(type.toString(), bucket.tryConsume(4).get());
+            assertFalse(type.toString(), bucket.tryConsume(6).get());
+            assertEquals(type.toString(), 2L, (long) bucket.consumeAsMuchAsPossible(2).get());
+            assertEquals(type.toString(), 3L, bucket.createSnapshot().get().getValue(0));
+            meter.addTime(50);
+            assertEquals(type.toString(), 8L, (long) bucket.consumeAsMuchAsPossible().get());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldValidateArgumentsSynchronously() {
+        Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(10, NANOSECONDS, 100)
+                .buildCustomGrid(new GridProxyMock())
+                .asAsync()
+                .tryConsume(0);
+    }
+
+    @Test
+    public void gridBucketShouldNotBlockUntilProxyCompletesCommand() throws Exception {
+        DeferredGridProxy proxy = new DeferredGridProxy();
+        AsyncBucket bucket = Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(10, NANOSECONDS, 100)
+                .buildCustomGrid(proxy)
+                .asAsync();
+
+        CompletableFuture<Boolean> result = bucket.tryConsume(1);
+        assertFalse(result.isDone());
+        proxy.complete();
+        assertTrue(result.get());
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void defaultProxyImplementationShouldReportFailureThroughFuture() throws Exception {
+        GridProxy failingProxy = new GridProxyMock() {
+            @Override
+            public <T extends Serializable> T execute(GridCommand<T> command) {
+                throw new IllegalStateException();
+            }
+        };
+        failingProxy.executeAsync(null).get();
+    }
+
+    @Test
+    public void scheduledConsumeShouldCompleteWhenTokensAreRefilled() throws Exception {
+        for (BucketType type : BucketType.values()) {
+            BucketBuilder builder = Buckets.withNanoTimePrecision()
+                    .withLimitedBandwidth(10, MILLISECONDS, 100, 0);
+            AsyncBucket bucket = type.createBucket(builder).asAsync();
+
+            long startNanos = System.nanoTime();
+            bucket.consume(5, scheduler).get(5, SECONDS);
+            long waitedNanos = System.nanoTime() - startNanos;
+            assertTrue(type + " waited only " + waitedNanos + " nanos", waitedNanos >= MILLISECONDS.toNanos(40));
+        }
+    }
+
+    @Test
+    public void scheduledTryConsumeShouldRespectWaitingLimit() throws Exception {
+        for (BucketType type : BucketType.values()) {
+            BucketBuilder builder = Buckets.withNanoTimePrecision()
+                    .withLimitedBandwidth(10, SECONDS, 100, 0);
+            AsyncBucket bucket = type.createBucket(builder).asAsync();
+
+            assertFalse(type.toString(), bucket.tryConsume(5, MILLISECONDS.toNanos(10), scheduler).get(5, SECONDS));
+            assertFalse(type.toString(), bucket.tryConsume(11, SECONDS.toNanos(1000), scheduler).get(5, SECONDS));
+        }
+    }
+
+    @Test
+    public void scheduledConsumeShouldFailWhenTokensCanNeverBeConsumed() throws Exception {
+        for (BucketType type : BucketType.values()) {
+            BucketBuilder builder = Buckets.withNanoTimePrecision()
+                    .withLimitedBandwidth(10, MILLISECONDS, 100);
+            AsyncBucket bucket = type.createBucket(builder).asAsync();
+            try {
+                bucket.consume(11, scheduler).get(5, SECONDS);
+                fail(type.toString());
+            } catch (ExecutionException e) {
+                assertTrue(type.toString(), e.getCause() instanceof IllegalArgumentException);
+            }
+        }
+    }
+
+    @Test
+    public void singleSchedulerThreadShouldServeManyWaiters() throws Exception {
+        AsyncBucket bucket = Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(1000, MILLISECONDS, 100, 0)
+                .buildCustomGrid(new GridProxyMock())
+                .asAsync();
+
+        long startNanos = System.nanoTime();
+        List<CompletableFuture<Void>> waiters = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            waiters.add(bucket.consumeSingleToken(scheduler));
+        }
+        CompletableFuture.allOf(waiters.toArray(new CompletableFuture[0])).get(10, SECONDS);
+        long waitedNanos = System.nanoTime() - startNanos;
+        assertTrue("1000 tokens can not be refilled in " + waitedNanos + " nanos", waitedNanos >= MILLISECONDS.toNanos(90));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowNullScheduler() {
+        Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(10, NANOSECONDS, 100)
+                .build()
+                .asAsync()
+                .consume(1, null);
+    }
+
+    private static class DeferredGridProxy extends GridProxyMock {
+
+        private Runnable pending;
+
+        @Override
+        public <T extends Serializable> CompletableFuture<T> executeAsync(GridCommand<T> command) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            pending = () -> future.complete(execute(command));
+            return future;
+        }
+
+        void complete() {
+            pending.run();
+        }
+
+    }
+
+}
@@ -140,4 +140,26 @@ class BandwidthSpecification extends Specification {
             3  |       55        | 1000   | 10055    |      1000   |     10500   |     600   |      0        |    10504    |     3    |       1
     }
 
+    @Unroll
+    def "Specification for addTokens #n"(int n, long initialCapacity, long capacity, long tokensToAdd, long requiredSize) {
+        setup:
+            def meter = new TimeMeterMock(0);
+            def bucket = Buckets.withCustomTimePrecision(meter)
+                    .withLimitedBandwidth(new AdjusterMock(capacity), TimeUnit.NANOSECONDS, 1000, initialCapacity)
+                    .build()
+            def bandwidth = bucket.getConfiguration().getBandwidth(0)
+            def bandwidths = bucket.getConfiguration().getBandwidths()
+            def state = bucket.createSnapshot()
+        when:
+            state.addTokens(bandwidths, tokensToAdd, 0)
+        then:
+            bandwidth.getCurrentSize(state) == requiredSize
+        where:
+            n  | initialCapacity | capacity | tokensToAdd    | requiredSize
+            1  |        0        |   100    |      10        |      10
+            2  |       90        |   100    |      10        |     100
+            3  |       90        |   100    |      11        |     100
+            4  |       50        |   100    | Long.MAX_VALUE |     100
+    }
+
 }
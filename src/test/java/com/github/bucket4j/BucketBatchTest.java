@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j;
+
+import com.github.bucket4j.grid.GridCommand;
+import com.github.bucket4j.mock.BucketType;
+import com.github.bucket4j.mock.GridProxyMock;
+import com.github.bucket4j.mock.TimeMeterMock;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BucketBatchTest {
+
+    private final TimeMeterMock meter = new TimeMeterMock(0);
+
+    @Test
+    public void addedTokensShouldBeLimitedByCapacity() {
+        List<Bucket> buckets = new ArrayList<>(BucketType.createBuckets(builder(10)));
+        buckets.add(builder(10).buildStriped(3));
+        for (Bucket bucket : buckets) {
+            assertEquals(bucket.toString(), 10, bucket.consumeAsMuchAsPossible());
+            bucket.addTokens(4);
+            assertEquals(bucket.toString(), 4, bucket.createSnapshot().getAvailableTokens(bucket.getConfiguration().getBandwidths()));
+            bucket.addTokens(100);
+            assertEquals(bucket.toString(), 10, bucket.consumeAsMuchAsPossible());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowToAddNonPositiveTokens() {
+        builder(10).build().addTokens(0);
+    }
+
+    @Test
+    public void shouldConsumeFromAllBucketsWhenAllHaveEnoughTokens() {
+        Bucket user = builder(10).build();
+        Bucket tenant = builder(100).build();
+        Bucket endpoint = builder(50).buildCustomGrid(new GridProxyMock());
+
+        assertTrue(BucketBatch.tryConsume(5, user, tenant, endpoint));
+        assertEquals(5, user.consumeAsMuchAsPossible());
+        assertEquals(95, tenant.consumeAsMuchAsPossible());
+        assertEquals(45, endpoint.consumeAsMuchAsPossible());
+    }
+
+    @Test
+    public void shouldRollbackWhenAnyBucketRejects() {
+        Bucket user = builder(10).build();
+        Bucket endpoint = builder(50).buildCustomGrid(new GridProxyMock());
+        Bucket tenant = builder(3).build();
+        CountingGridProxy globalProxy = new CountingGridProxy();
+        Bucket global = builder(100).buildCustomGrid(globalProxy);
+
+        assertFalse(BucketBatch.tryConsume(5, user, endpoint, tenant, global));
+        assertEquals(10, user.consumeAsMuchAsPossible());
+        assertEquals(50, endpoint.consumeAsMuchAsPossible());
+        assertEquals(3, tenant.consumeAsMuchAsPossible());
+        // local rejection is known immediately, so bucket after rejected one is not touched at all
+        assertEquals(0, globalProxy.executedCommands);
+    }
+
+    @Test
+    public void bucketsWithGuaranteedBandwidthShouldBeRejected() {
+        for (BucketType type : BucketType.values()) {
+            Bucket guaranteed = type.createBucket(Buckets.withCustomTimePrecision(meter)
+                    .withLimitedBandwidth(10, NANOSECONDS, 1000, 2)
+                    .withGuaranteedBandwidth(5, NANOSECONDS, 1000, 5));
+            Bucket tenant = builder(3).build();
+
+            try {
+                BucketBatch.tryConsume(1, tenant, guaranteed);
+                fail(type.toString());
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            // nothing was consumed, because buckets are checked before first attempt
+            assertEquals(type.toString(), 3, tenant.consumeAsMuchAsPossible());
+            assertEquals(type.toString(), 2, guaranteed.createSnapshot().getValue(0));
+        }
+    }
+
+    @Test
+    public void shouldRollbackAndRethrowWhenGridFails() {
+        Bucket user = builder(10).build();
+        IllegalStateException gridFailure = new IllegalStateException("grid is unavailable");
+        Bucket global = builder(100).buildCustomGrid(new GridProxyMock() {
+            @Override
+            public <T extends Serializable> CompletableFuture<T> executeAsync(GridCommand<T> command) {
+                CompletableFuture<T> future = new CompletableFuture<>();
+                future.completeExceptionally(gridFailure);
+                return future;
+            }
+        });
+
+        try {
+            BucketBatch.tryConsume(5, user, global);
+            fail();
+        } catch (IllegalStateException e) {
+            assertSame(gridFailure, e);
+        }
+        assertEquals(10, user.consumeAsMuchAsPossible());
+    }
+
+    private BucketBuilder builder(long capacity) {
+        return Buckets.withCustomTimePrecision(meter).withLimitedBandwidth(capacity, NANOSECONDS, 1000);
+    }
+
+    private static class CountingGridProxy extends GridProxyMock {
+
+        private int executedCommands;
+
+        @Override
+        public <T extends Serializable> T execute(GridCommand<T> command) {
+            executedCommands++;
+            return super.execute(command);
+        }
+
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CachedTimeMeterTest {
+
+    @Test
+    public void metersWithSameResolutionShouldBeShared() {
+        assertSame(CachedTimeMeter.withResolution(1, MILLISECONDS), CachedTimeMeter.withResolution(1000, MICROSECONDS));
+        assertNotSame(CachedTimeMeter.withResolution(1, MILLISECONDS), CachedTimeMeter.withResolution(100, MICROSECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowNonPositiveResolution() {
+        Buckets.withCachedTimePrecision(0, MILLISECONDS);
+    }
+
+    @Test
+    public void cachedTimeShouldFollowSystemTimeWithLagBoundedByResolution() throws InterruptedException {
+        CachedTimeMeter meter = CachedTimeMeter.withResolution(1, MILLISECONDS);
+        long startTime = meter.currentTime();
+        long previousTime = startTime;
+        for (int i = 0; i < 10; i++) {
+            Thread.sleep(20);
+            long cachedTime = meter.currentTime();
+            assertTrue(cachedTime >= previousTime);
+            // generous bound, ticker thread can be descheduled on busy machine
+            assertTrue(System.nanoTime() - cachedTime < MILLISECONDS.toNanos(500));
+            previousTime = cachedTime;
+        }
+        assertTrue(previousTime - startTime >= MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void deserializedMeterShouldBeReplacedByLocalInstance() throws Exception {
+        CachedTimeMeter meter = CachedTimeMeter.withResolution(1, MILLISECONDS);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(meter);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertSame(meter, in.readObject());
+        }
+    }
+
+    @Test
+    public void stoppedMeterShouldReadSystemClock() throws InterruptedException {
+        CachedTimeMeter meter = CachedTimeMeter.withResolution(3, MILLISECONDS);
+        CachedTimeMeter.shutdown();
+        assertNotSame(meter, CachedTimeMeter.withResolution(3, MILLISECONDS));
+
+        long startTime = meter.currentTime();
+        Thread.sleep(20);
+        assertTrue(meter.currentTime() - startTime >= MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    public void bucketShouldRefillTokensByCachedTime() throws InterruptedException {
+        Bucket bucket = Buckets.withCachedTimePrecision(1, MILLISECONDS)
+                .withLimitedBandwidth(10, MILLISECONDS, 100, 0)
+                .build();
+        assertTrue(bucket.tryConsume(1, MILLISECONDS.toNanos(500)));
+        bucket.consume(10);
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j;
+
+import com.github.bucket4j.grid.GridBucketExpiration;
+import com.github.bucket4j.mock.BucketType;
+import com.github.bucket4j.mock.FrozenTimeMeter;
+import com.github.bucket4j.mock.TimeMeterMock;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReservationTest {
+
+    private static final BucketType[] RESERVING_TYPES = {BucketType.LOCAL_LOCK_FREE, BucketType.LOCAL_LOCK_BASED, BucketType.GRID};
+
+    @Test
+    public void waitingConsumerShouldReserveTokensAndSleepExactlyOnce() throws InterruptedException {
+        for (BucketType type : RESERVING_TYPES) {
+            TimeMeterMock meter = new TimeMeterMock();
+            Bucket bucket = type.createBucket(Buckets.withCustomTimePrecision(meter)
+                    .withLimitedBandwidth(10, NANOSECONDS, 100, 0));
+
+            bucket.consume(5);
+            assertEquals(type.toString(), 1, meter.getSleeps());
+            assertEquals(type.toString(), 50, meter.getSleeped());
+            assertEquals(type.toString(), -5, bucket.createSnapshot().getValue(0));
+
+            bucket.consume(5);
+            assertEquals(type.toString(), 2, meter.getSleeps());
+            assertEquals(type.toString(), 100, meter.getSleeped());
+            assertEquals(type.toString(), -5, bucket.createSnapshot().getValue(0));
+        }
+    }
+
+    @Test
+    public void waitingConsumerShouldSleepAgainWhenTimeMeterWakesUpTooEarly() throws InterruptedException {
+        for (BucketType type : RESERVING_TYPES) {
+            EarlyWakeUpTimeMeter meter = new EarlyWakeUpTimeMeter();
+            Bucket bucket = type.createBucket(Buckets.withCustomTimePrecision(meter)
+                    .withLimitedBandwidth(10, NANOSECONDS, 100, 0));
+
+            bucket.consume(5);
+            assertEquals(type.toString(), 50, meter.currentTime());
+            assertEquals(type.toString(), -5, bucket.createSnapshot().getValue(0));
+        }
+    }
+
+    @Test
+    public void reservedTokensShouldBeReturnedWhenWaitingThreadIsInterrupted() {
+        for (BucketType type : BucketType.values()) {
+            TimeMeterMock meter = new TimeMeterMock();
+            Bucket bucket = type.createBucket(Buckets.withCustomTimePrecision(meter)
+                    .withLimitedBandwidth(10, NANOSECONDS, 100, 0));
+
+            Thread.currentThread().interrupt();
+            try {
+                bucket.consume(5);
+                fail(type.toString());
+            } catch (InterruptedException e) {
+                // expected
+            } finally {
+                Thread.interrupted();
+            }
+
+            // without returning of reservation the next consumer would wait for 50 more nanoseconds
+            meter.setCurrentTime(50);
+            assertTrue(type.toString(), bucket.tryConsume(5));
+        }
+    }
+
+    @Test
+    public void reservationShouldRespectWaitingLimit() throws InterruptedException {
+        for (BucketType type : RESERVING_TYPES) {
+            TimeMeterMock meter = new TimeMeterMock();
+            Bucket bucket = type.createBucket(Buckets.withCustomTimePrecision(meter)
+                    .withLimitedBandwidth(10, NANOSECONDS, 100, 0));
+
+            assertFalse(type.toString(), bucket.tryConsume(5, 50));
+            assertFalse(type.toString(), bucket.tryConsume(11, 10_000));
+            assertEquals(type.toString(), 0, bucket.createSnapshot().getValue(0));
+            assertEquals(type.toString(), 0, meter.getSleeps());
+
+            assertTrue(type.toString(), bucket.tryConsume(5, 51));
+            assertEquals(type.toString(), -5, bucket.createSnapshot().getValue(0));
+        }
+    }
+
+    @Test
+    public void consumptionGrantedByGuaranteedBandwidthShouldNotPutLimitedBandwidthIntoDebt() throws InterruptedException {
+        for (BucketType type : RESERVING_TYPES) {
+            TimeMeterMock meter = new TimeMeterMock();
+            Bucket bucket = type.createBucket(Buckets.withCustomTimePrecision(meter)
+                    .withLimitedBandwidth(5, NANOSECONDS, 10, 0)
+                    .withGuaranteedBandwidth(10, NANOSECONDS, 100, 9));
+
+            bucket.consume(3);
+            assertEquals(type.toString(), 0, meter.getSleeps());
+            BucketState snapshot = bucket.createSnapshot();
+            assertEquals(type.toString(), 0, snapshot.getValue(0));
+            assertEquals(type.toString(), 6, snapshot.getValue(2));
+        }
+    }
+
+    @Test
+    public void gridBucketShouldNotReserveTokensBeyondExpirationHorizon() throws InterruptedException {
+        TimeMeterMock meter = new TimeMeterMock();
+        BucketBuilder builder = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(10, NANOSECONDS, 100, 0);
+        assertEquals(100, GridBucketExpiration.getReservationHorizon(builder.createConfiguration()));
+        Bucket bucket = BucketType.GRID.createBucket(builder);
+
+        // time is rewound, so the bucket looks as if consumer was still waiting for reserved tokens
+        bucket.consume(10);
+        meter.setCurrentTime(0);
+        assertEquals(1, meter.getSleeps());
+        assertEquals(-10, bucket.createSnapshot().getValue(0));
+
+        // waits until debt is paid off and only then reserves
+        bucket.consume(10);
+        assertEquals(3, meter.getSleeps());
+        assertEquals(200, meter.currentTime());
+        assertEquals(-10, bucket.createSnapshot().getValue(0));
+
+        meter.setCurrentTime(100);
+        assertFalse(bucket.tryConsume(10, 200));
+        assertEquals(3, meter.getSleeps());
+
+        assertTrue(bucket.tryConsume(10, 250));
+        assertEquals(5, meter.getSleeps());
+        assertEquals(300, meter.currentTime());
+    }
+
+    @Test
+    public void timeToLiveOfGridEntryShouldCoverReservationHorizon() {
+        BucketConfiguration configuration = Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(10, MILLISECONDS, 100)
+                .withLimitedBandwidth(1000, MILLISECONDS, 1000)
+                .createConfiguration();
+        assertEquals(MILLISECONDS.toNanos(2000), GridBucketExpiration.getTimeToLiveNanos(configuration));
+        assertEquals(2, GridBucketExpiration.getTimeToLiveSeconds(configuration));
+    }
+
+    @Test
+    public void debtShouldBePaidOffByRefill() {
+        Bucket bucket = Buckets.withCustomTimePrecision(new TimeMeterMock())
+                .withLimitedBandwidth(10, NANOSECONDS, 100, 0)
+                .build();
+        Bandwidth[] bandwidths = bucket.getConfiguration().getBandwidths();
+        BucketState state = bucket.createSnapshot();
+
+        // three consumers which arrived at the same moment wait one after another
+        assertEquals(90, state.reserveAndCalculateTimeToSleep(bandwidths, 0, 9, 0));
+        assertEquals(180, state.reserveAndCalculateTimeToSleep(bandwidths, 0, 9, 0));
+        assertEquals(270, state.reserveAndCalculateTimeToSleep(bandwidths, 0, 9, 0));
+        assertEquals(-27, state.getValue(0));
+
+        state.refill(bandwidths, 250);
+        assertEquals(-2, state.getValue(0));
+        state.refill(bandwidths, 300);
+        assertEquals(3, state.getValue(0));
+        state.refill(bandwidths, 10_000);
+        assertEquals(10, state.getValue(0));
+    }
+
+    @Test
+    public void refillShouldIgnoreTimeWhichWentBackwards() {
+        FrozenTimeMeter meter = new FrozenTimeMeter();
+        meter.setCurrentTime(1000);
+        Bucket bucket = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(10, NANOSECONDS, 100, 0)
+                .build();
+        Bandwidth[] bandwidths = bucket.getConfiguration().getBandwidths();
+        BucketState state = bucket.createSnapshot();
+
+        state.refill(bandwidths, 1050);
+        assertEquals(5, state.getValue(0));
+        state.refill(bandwidths, 900);
+        assertEquals(5, state.getValue(0));
+        state.refill(bandwidths, 1060);
+        assertEquals(6, state.getValue(0));
+    }
+
+    /**
+     * Time meter which always wakes up in the middle of requested sleeping.
+     */
+    private static class EarlyWakeUpTimeMeter extends TimeMeterMock {
+
+        @Override
+        public void sleep(long units) throws InterruptedException {
+            super.sleep(units / 2 + 1);
+        }
+
+    }
+
+}
@@ -20,6 +20,8 @@ import org.junit.Test;
 
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
+
 public class TimeMeterTest {
 
     @Test(expected = InterruptedException.class)
@@ -34,4 +36,28 @@ public class TimeMeterTest {
         TimeMeter.SYSTEM_NANOTIME.sleep(TimeUnit.SECONDS.toNanos(10));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldConvertUnitsToNanos() {
+        assertEquals(42, TimeMeter.SYSTEM_NANOTIME.toNanos(42));
+        assertEquals(42_000_000, TimeMeter.SYSTEM_MILLISECONDS.toNanos(42));
+
+        TimeMeter microsMeter = new TimeMeter() {
+            @Override
+            public long currentTime() {
+                return 0;
+            }
+
+            @Override
+            public void sleep(long units) {
+            }
+
+            @Override
+            public long toBandwidthPeriod(TimeUnit timeUnit, long period) {
+                return timeUnit.toMicros(period);
+            }
+        };
+        assertEquals(42_000, microsMeter.toNanos(42));
+        assertEquals(Long.MAX_VALUE, microsMeter.toNanos(Long.MAX_VALUE));
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.grid;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.mock.GridProxyMock;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CoalescingGridProxyTest {
+
+    private static final int THREADS = 50;
+    private static final int CALLS_PER_THREAD = 20;
+
+    @Test
+    public void concurrentCallsShouldBeMergedWithoutLosingAccuracy() throws Exception {
+        SlowGridProxy grid = new SlowGridProxy();
+        Bucket bucket = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(500, TimeUnit.DAYS, 1)
+                .withRequestCoalescing()
+                .buildCustomGrid(grid);
+        grid.executions.set(0);
+
+        AtomicInteger consumed = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < CALLS_PER_THREAD; j++) {
+                        if (bucket.tryConsumeSingleToken()) {
+                            consumed.incrementAndGet();
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(500, consumed.get());
+        assertTrue("executions " + grid.executions.get(), grid.executions.get() < THREADS * CALLS_PER_THREAD / 5);
+    }
+
+    @Test
+    public void loneCallerShouldNotWait() {
+        SlowGridProxy grid = new SlowGridProxy();
+        Bucket bucket = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.DAYS, 1)
+                .withRequestCoalescing()
+                .buildCustomGrid(grid);
+
+        assertTrue(bucket.tryConsume(7));
+        assertEquals(3, bucket.consumeAsMuchAsPossible());
+    }
+
+    @Test
+    public void failureShouldBeDeliveredToAllMergedCallers() throws Exception {
+        SlowGridProxy grid = new SlowGridProxy();
+        Bucket bucket = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.DAYS, 1)
+                .withRequestCoalescing()
+                .buildCustomGrid(grid);
+        grid.failure = new IllegalStateException("grid is unavailable");
+
+        AtomicInteger failed = new AtomicInteger();
+        Thread[] threads = new Thread[10];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    bucket.tryConsumeSingleToken();
+                } catch (IllegalStateException e) {
+                    failed.incrementAndGet();
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(threads.length, failed.get());
+    }
+
+    private static class SlowGridProxy extends GridProxyMock {
+
+        private final AtomicInteger executions = new AtomicInteger();
+        private volatile RuntimeException failure;
+
+        @Override
+        public synchronized <T extends Serializable> T execute(GridCommand<T> command) {
+            executions.incrementAndGet();
+            try {
+                // emulates round trip to the grid
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return super.execute(command);
+        }
+
+    }
+
+}
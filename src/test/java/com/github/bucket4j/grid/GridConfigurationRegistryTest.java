@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.grid;
+
+import com.github.bucket4j.BucketBuilder;
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.BucketState;
+import com.github.bucket4j.Buckets;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GridConfigurationRegistryTest {
+
+    private static final String ID = "test-limits";
+
+    @After
+    public void tearDown() {
+        GridConfigurationRegistry.unregister(ID);
+    }
+
+    @Test
+    public void builderShouldReuseConfigurationUntilModification() {
+        BucketBuilder builder = Buckets.withMillisTimePrecision().withLimitedBandwidth(100, MINUTES, 1);
+        BucketConfiguration configuration = builder.createConfiguration();
+        assertSame(configuration, builder.createConfiguration());
+
+        builder.withLimitedBandwidth(10, SECONDS, 1);
+        assertNotSame(configuration, builder.createConfiguration());
+        assertEquals(2, builder.createConfiguration().getBandwidths().length);
+    }
+
+    @Test
+    public void registeredConfigurationShouldBeSerializedById() throws Exception {
+        BucketConfiguration configuration = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(100, MINUTES, 1)
+                .withLimitedBandwidth(10, SECONDS, 1)
+                .createConfiguration();
+        BucketState bucketState = BucketState.createInitialState(configuration);
+        byte[] withoutRegistration = serialize(new GridBucketState(configuration, bucketState));
+
+        GridConfigurationRegistry.register(ID, configuration);
+        GridBucketState state = new GridBucketState(configuration, bucketState);
+        byte[] withRegistration = serialize(state);
+        assertTrue(withRegistration.length < withoutRegistration.length);
+
+        GridBucketState deserialized = deserialize(withRegistration);
+        assertSame(configuration, deserialized.getBucketConfiguration());
+        assertEquals(ID, deserialized.getConfigurationId());
+        assertArrayEquals(bucketState.createSnapshot(), deserialized.getBucketState().createSnapshot());
+    }
+
+    @Test
+    public void notRegisteredConfigurationShouldBeSerializedAsIs() throws Exception {
+        BucketConfiguration configuration = Buckets.withMillisTimePrecision().withLimitedBandwidth(100, MINUTES, 1).createConfiguration();
+        GridBucketState deserialized = deserialize(serialize(new GridBucketState(configuration, BucketState.createInitialState(configuration))));
+        assertNull(deserialized.getConfigurationId());
+        assertEquals(1, deserialized.getBucketConfiguration().getBandwidths().length);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotAllowToRegisterAnotherConfigurationWithSameId() {
+        GridConfigurationRegistry.register(ID, Buckets.withMillisTimePrecision().withLimitedBandwidth(100, MINUTES, 1).createConfiguration());
+        GridConfigurationRegistry.register(ID, Buckets.withMillisTimePrecision().withLimitedBandwidth(100, MINUTES, 1).createConfiguration());
+    }
+
+    @Test
+    public void shouldNotAllowToRegisterSameConfigurationWithAnotherId() {
+        BucketConfiguration configuration = Buckets.withMillisTimePrecision().withLimitedBandwidth(100, MINUTES, 1).createConfiguration();
+        GridConfigurationRegistry.register(ID, configuration);
+        try {
+            GridConfigurationRegistry.register("another-" + ID, configuration);
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(ID, GridConfigurationRegistry.getId(configuration));
+        try {
+            GridConfigurationRegistry.resolve("another-" + ID);
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailToDeserializeStateWithUnknownConfigurationId() throws Exception {
+        BucketConfiguration configuration = Buckets.withMillisTimePrecision().withLimitedBandwidth(100, MINUTES, 1).createConfiguration();
+        GridConfigurationRegistry.register(ID, configuration);
+        byte[] bytes = serialize(new GridBucketState(configuration, BucketState.createInitialState(configuration)));
+        GridConfigurationRegistry.unregister(ID);
+        deserialize(bytes);
+    }
+
+    private static byte[] serialize(GridBucketState state) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(state);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static GridBucketState deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (GridBucketState) in.readObject();
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.grid;
+
+import com.github.bucket4j.Bandwidth;
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.BucketState;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.TimeMeter;
+import com.github.bucket4j.mock.AdjusterMock;
+import com.github.bucket4j.mock.TimeMeterMock;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GridSerializationTest {
+
+    @Test
+    public void builtInCommandsShouldBeSerializedWithoutClassDescriptors() throws Exception {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        BucketConfiguration configuration = Buckets.withCustomTimePrecision(meter).withLimitedBandwidth(10, SECONDS, 100).createConfiguration();
+
+        assertEquals(9, commandBytes(new TryConsumeCommand(3)).length);
+        assertEquals(Boolean.TRUE, copyCommand(new TryConsumeCommand(3)).execute(stateOf(configuration)));
+        assertEquals(Boolean.FALSE, copyCommand(new TryConsumeCommand(11)).execute(stateOf(configuration)));
+        assertEquals(Long.valueOf(10), copyCommand(new ConsumeAsMuchAsPossibleCommand(20)).execute(stateOf(configuration)));
+        assertEquals(Long.valueOf(Long.MAX_VALUE), copyCommand(new ConsumeOrCalculateTimeToCloseDeficitCommand(11)).execute(stateOf(configuration)));
+        assertEquals(17, commandBytes(new ReserveAndCalculateTimeToSleepCommand(5, 1000)).length);
+        assertEquals(Long.valueOf(0), copyCommand(new ReserveAndCalculateTimeToSleepCommand(5, 1000)).execute(stateOf(configuration)));
+        assertEquals(Boolean.TRUE, copyCommand(new AddTokensCommand(5)).execute(stateOf(configuration)));
+        assertEquals(1, commandBytes(new CreateSnapshotCommand()).length);
+        assertEquals(21, commandBytes(new BatchTryConsumeCommand(new long[] {6, 5})).length);
+        assertTrue(Arrays.equals(new boolean[] {true, false, true},
+                copyCommand(new BatchTryConsumeCommand(new long[] {6, 5, 4})).execute(stateOf(configuration))));
+        assertTrue(copyCommand(new CreateSnapshotCommand()) instanceof CreateSnapshotCommand);
+    }
+
+    @Test
+    public void shouldSerializeCachedTimeMeterByResolution() throws Exception {
+        BucketConfiguration configuration = Buckets.withCachedTimePrecision(1, MILLISECONDS)
+                .withLimitedBandwidth(100, MINUTES, 1)
+                .createConfiguration();
+        GridBucketState copy = copyWithJavaSerialization(stateOf(configuration));
+        assertSame(configuration.getTimeMeter(), copy.getBucketConfiguration().getTimeMeter());
+    }
+
+    @Test
+    public void shouldSerializeConfigurationWithStandardTimeMeterAndImmutableCapacity() throws Exception {
+        BucketConfiguration configuration = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(100, MINUTES, 1)
+                .withLimitedBandwidth(10, SECONDS, 1, 3)
+                .withGuaranteedBandwidth(1, SECONDS, 1)
+                .createConfiguration();
+        GridBucketState state = stateOf(configuration);
+
+        GridBucketState copy = copyWithJavaSerialization(state);
+        assertSame(TimeMeter.SYSTEM_MILLISECONDS, copy.getBucketConfiguration().getTimeMeter());
+        assertConfigurationEquals(configuration, copy.getBucketConfiguration());
+        assertArrayEquals(state.getBucketState().createSnapshot(), copy.getBucketState().createSnapshot());
+    }
+
+    @Test
+    public void shouldSerializeCustomTimeMeterAndAdjusterWithJavaSerialization() throws Exception {
+        TimeMeterMock meter = new TimeMeterMock(42);
+        BucketConfiguration configuration = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(new AdjusterMock(7), SECONDS, 10, 5)
+                .createConfiguration();
+
+        GridBucketState copy = copyWithJavaSerialization(stateOf(configuration));
+        assertEquals(42, copy.getBucketConfiguration().getTimeMeter().currentTime());
+        assertTrue(copy.getBucketConfiguration().getBandwidth(0).getAdjuster() instanceof AdjusterMock);
+        assertConfigurationEquals(configuration, copy.getBucketConfiguration());
+    }
+
+    private static GridBucketState stateOf(BucketConfiguration configuration) {
+        return new GridBucketState(configuration, BucketState.createInitialState(configuration));
+    }
+
+    private static void assertConfigurationEquals(BucketConfiguration expected, BucketConfiguration actual) {
+        assertEquals(expected.getStateSize(), actual.getStateSize());
+        assertEquals(expected.getBandwidths().length, actual.getBandwidths().length);
+        for (int i = 0; i < expected.getBandwidths().length; i++) {
+            Bandwidth expectedBandwidth = expected.getBandwidth(i);
+            Bandwidth actualBandwidth = actual.getBandwidth(i);
+            assertEquals(expectedBandwidth.isGuaranteed(), actualBandwidth.isGuaranteed());
+            assertEquals(expectedBandwidth.getInitialCapacity(), actualBandwidth.getInitialCapacity());
+            assertEquals(expectedBandwidth.getPeriod(), actualBandwidth.getPeriod());
+            assertEquals(expectedBandwidth.getMaxCapacity(0), actualBandwidth.getMaxCapacity(0));
+        }
+    }
+
+    private static byte[] commandBytes(GridCommand<?> command) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            GridSerialization.writeCommand(out, command);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <T extends java.io.Serializable> GridCommand<T> copyCommand(GridCommand<T> command) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(commandBytes(command)))) {
+            return (GridCommand<T>) GridSerialization.readCommand(in);
+        }
+    }
+
+    private static GridBucketState copyWithJavaSerialization(GridBucketState state) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(state);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (GridBucketState) in.readObject();
+        }
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.grid;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketBuilder;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.mock.FrozenTimeMeter;
+import com.github.bucket4j.mock.GridProxyMock;
+import org.junit.Test;
+
+import java.io.Serializable;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LeasedGridBucketTest {
+
+    private final FrozenTimeMeter meter = new FrozenTimeMeter();
+    private final CountingGridProxy grid = new CountingGridProxy();
+
+    @Test
+    public void shouldServeConsumptionFromLeaseLocally() {
+        Bucket bucket = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(1000, NANOSECONDS, 1_000_000)
+                .withTokenLease(100, 1000, NANOSECONDS)
+                .buildCustomGrid(grid);
+        grid.executions = 0;
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(bucket.tryConsumeSingleToken());
+        }
+        assertEquals(1, grid.executions);
+
+        assertTrue(bucket.tryConsumeSingleToken());
+        assertEquals(2, grid.executions);
+        assertEquals(800, bucket.createSnapshot().getValue(0));
+    }
+
+    @Test
+    public void requestGreaterThanLeaseShouldBeExecutedAgainstGrid() {
+        Bucket bucket = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(1000, NANOSECONDS, 1_000_000)
+                .withTokenLease(100, 1000, NANOSECONDS)
+                .buildCustomGrid(grid);
+
+        assertTrue(bucket.tryConsume(500));
+        assertEquals(500, bucket.createSnapshot().getValue(0));
+        assertFalse(bucket.tryConsume(501));
+    }
+
+    @Test
+    public void unusedTokensOfExpiredLeaseShouldBeReturnedToGrid() {
+        LeasedGridBucket bucket = (LeasedGridBucket) Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(1000, NANOSECONDS, 1_000_000_000)
+                .withTokenLease(100, 1000, NANOSECONDS)
+                .buildCustomGrid(grid);
+
+        assertTrue(bucket.tryConsume(10));
+        assertEquals(10, bucket.consumeAsMuchAsPossible(10));
+        assertEquals(900, bucket.createSnapshot().getValue(0));
+
+        // 80 unused tokens are returned and new lease of 100 tokens is taken
+        meter.setCurrentTime(1000);
+        assertTrue(bucket.tryConsumeSingleToken());
+        assertEquals(880, bucket.createSnapshot().getValue(0));
+
+        bucket.returnLeasedTokens();
+        assertEquals(979, bucket.createSnapshot().getValue(0));
+    }
+
+    @Test
+    public void requestGreaterThanLeaseShouldReturnTokensOfExpiredLease() {
+        Bucket bucket = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(1000, NANOSECONDS, 1_000_000_000)
+                .withTokenLease(100, 1000, NANOSECONDS)
+                .buildCustomGrid(grid);
+
+        assertTrue(bucket.tryConsume(10));
+        assertEquals(900, bucket.createSnapshot().getValue(0));
+
+        meter.setCurrentTime(1000);
+        assertTrue(bucket.tryConsume(500));
+        assertEquals(490, bucket.createSnapshot().getValue(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowNonPositiveTokensPerLease() {
+        new LeasedGridBucket(Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(1000, NANOSECONDS, 1_000_000)
+                .buildCustomGrid(grid), 0, 1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowNonPositiveLeaseTime() {
+        new LeasedGridBucket(Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(1000, NANOSECONDS, 1_000_000)
+                .buildCustomGrid(grid), 100, 0);
+    }
+
+    @Test
+    public void overshootShouldNotExceedLeasePerNode() {
+        int nodes = 3;
+        long tokensPerLease = 10;
+        BucketBuilder builder = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(100, NANOSECONDS, 100, 0)
+                .withTokenLease(tokensPerLease, 50, NANOSECONDS);
+        Bucket[] buckets = new Bucket[nodes];
+        for (int i = 0; i < nodes; i++) {
+            buckets[i] = builder.buildCustomGrid(grid);
+        }
+
+        // every node is saturated, one token is refilled per unit of time
+        long windowStart = 1000;
+        long consumedInWindow = 0;
+        for (long time = 0; time < 2000; time++) {
+            meter.setCurrentTime(time);
+            for (Bucket bucket : buckets) {
+                while (bucket.tryConsumeSingleToken()) {
+                    if (time >= windowStart) {
+                        consumedInWindow++;
+                    }
+                }
+            }
+        }
+        long refilledInWindow = 2000 - windowStart;
+        assertTrue(consumedInWindow >= refilledInWindow - nodes * tokensPerLease);
+        assertTrue(consumedInWindow <= refilledInWindow + nodes * tokensPerLease);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveTokensPerLease() {
+        Buckets.withCustomTimePrecision(meter).withTokenLease(0, 1000, NANOSECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveLeaseTime() {
+        Buckets.withCustomTimePrecision(meter).withTokenLease(10, 0, NANOSECONDS);
+    }
+
+    private static class CountingGridProxy extends GridProxyMock {
+
+        private int executions;
+
+        @Override
+        public <T extends Serializable> T execute(GridCommand<T> command) {
+            executions++;
+            return super.execute(command);
+        }
+
+    }
+
+}
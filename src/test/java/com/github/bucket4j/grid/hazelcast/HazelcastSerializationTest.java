@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.grid.hazelcast;
+
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.BucketState;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.TryConsumeCommand;
+import com.github.bucket4j.mock.TimeMeterMock;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.SerializationService;
+import com.hazelcast.nio.serialization.SerializationServiceBuilder;
+import org.junit.Test;
+
+import java.util.AbstractMap;
+import java.util.Map;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class HazelcastSerializationTest {
+
+    private final SerializationService serializationService = new SerializationServiceBuilder().build();
+
+    @Test
+    public void gridBucketStateShouldBeSerializedByRegisteredSerializer() {
+        BucketConfiguration configuration = Buckets.withMillisTimePrecision().withLimitedBandwidth(100, MINUTES, 1).createConfiguration();
+        GridBucketState state = new GridBucketState(configuration, BucketState.createInitialState(configuration));
+
+        Data data = serializationService.toData(state);
+        assertEquals(GridBucketStateSerializerHook.TYPE_ID, data.getType());
+        GridBucketState copy = serializationService.toObject(data);
+        assertArrayEquals(state.getBucketState().createSnapshot(), copy.getBucketState().createSnapshot());
+    }
+
+    @Test
+    public void commandAndReplicantShouldBeSerializedAsIdentifiedDataSerializable() {
+        BucketConfiguration configuration = Buckets.withMillisTimePrecision().withLimitedBandwidth(100, MINUTES, 1).createConfiguration();
+        Map.Entry<Object, GridBucketState> entry = new AbstractMap.SimpleEntry<Object, GridBucketState>(
+                "key", new GridBucketState(configuration, BucketState.createInitialState(configuration)));
+
+        HazelcastCommand<Boolean> command = serializationService.toObject(serializationService.toData(new HazelcastCommand<>(new TryConsumeCommand(3))));
+        assertTrue(command.process(entry));
+        assertNotNull(command.getBackupProcessor());
+
+        HazelcastReplicant replicant = serializationService.toObject(serializationService.toData(command.getBackupProcessor()));
+        GridBucketState backup = new GridBucketState(configuration, BucketState.createInitialState(configuration));
+        replicant.processBackup(new AbstractMap.SimpleEntry<Object, GridBucketState>("key", backup));
+        assertEquals(97, backup.getBucketState().getValue(0));
+    }
+
+    @Test
+    public void replayedCommandShouldProduceTheSameStateAsOnPrimary() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        BucketConfiguration configuration = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(100, MINUTES, 1)
+                .withLimitedBandwidth(1000, MINUTES, 10)
+                .withLimitedBandwidth(10000, MINUTES, 100)
+                .createConfiguration();
+        GridBucketState primary = new GridBucketState(configuration, BucketState.createInitialState(configuration));
+        GridBucketState backup = new GridBucketState(configuration, BucketState.createInitialState(configuration));
+
+        meter.setCurrentTime(1000);
+        HazelcastCommand<Boolean> command = new HazelcastCommand<>(new TryConsumeCommand(3), true);
+        assertTrue(command.process(new AbstractMap.SimpleEntry<Object, GridBucketState>("key", primary)));
+        Data replicantData = serializationService.toData(command.getBackupProcessor());
+
+        // time on backup differs, but command is replayed with the time of primary
+        meter.setCurrentTime(5000);
+        HazelcastReplayReplicant replicant = serializationService.toObject(replicantData);
+        replicant.processBackup(new AbstractMap.SimpleEntry<Object, GridBucketState>("key", backup));
+        assertArrayEquals(primary.getBucketState().createSnapshot(), backup.getBucketState().createSnapshot());
+
+        HazelcastCommand<Boolean> snapshotCommand = new HazelcastCommand<>(new TryConsumeCommand(3));
+        snapshotCommand.process(new AbstractMap.SimpleEntry<Object, GridBucketState>("key", primary));
+        Data snapshotData = serializationService.toData(snapshotCommand.getBackupProcessor());
+        assertTrue(replicantData.bufferSize() < snapshotData.bufferSize());
+    }
+
+    @Test
+    public void absentBucketShouldBeInitializedInsideOfCommand() {
+        BucketConfiguration configuration = Buckets.withMillisTimePrecision().withLimitedBandwidth(100, MINUTES, 1).createConfiguration();
+        Map.Entry<Object, GridBucketState> entry = new AbstractMap.SimpleEntry<Object, GridBucketState>("key", null);
+
+        HazelcastCommand<Boolean> command = serializationService.toObject(serializationService.toData(
+                new HazelcastCommand<>(new TryConsumeCommand(3), configuration, true)));
+        assertTrue(command.process(entry));
+        assertEquals(97, entry.getValue().getBucketState().getValue(0));
+
+        // backup replica has no entry yet, so it receives whole state instead of replaying command
+        HazelcastBulkReplicant replicant = serializationService.toObject(serializationService.toData(command.getBackupProcessor()));
+        Map.Entry<Object, GridBucketState> backupEntry = new AbstractMap.SimpleEntry<Object, GridBucketState>("key", null);
+        replicant.processBackup(backupEntry);
+        assertEquals(97, backupEntry.getValue().getBucketState().getValue(0));
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.grid.ignite;
+
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.GridConfigurationRegistry;
+import com.github.bucket4j.grid.TryConsumeCommand;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.cache.processor.MutableEntry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IgniteSerializationTest {
+
+    private static final String ID = "ignite-limits";
+
+    @After
+    public void tearDown() {
+        GridConfigurationRegistry.unregister(ID);
+    }
+
+    @Test
+    public void registeredConfigurationShouldBeSentById() throws Exception {
+        BucketConfiguration configuration = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(100, MINUTES, 1)
+                .withLimitedBandwidth(10, SECONDS, 1)
+                .createConfiguration();
+        int withoutRegistration = serialize(new IgniteCommand<>(new TryConsumeCommand(3), configuration)).length;
+
+        GridConfigurationRegistry.register(ID, configuration);
+        byte[] bytes = serialize(new IgniteCommand<>(new TryConsumeCommand(3), configuration));
+        assertTrue(bytes.length < withoutRegistration);
+
+        IgniteCommand<Boolean> command = (IgniteCommand<Boolean>) deserialize(bytes);
+        EntryMock entry = new EntryMock();
+        assertTrue(command.process(entry));
+        assertSame(configuration, entry.value.getBucketConfiguration());
+        assertEquals(7, entry.value.getBucketState().getAvailableTokens(configuration.getBandwidths()));
+    }
+
+    @Test
+    public void bulkCommandShouldBeExternalizable() throws Exception {
+        BucketConfiguration configuration = Buckets.withMillisTimePrecision().withLimitedBandwidth(100, MINUTES, 1).createConfiguration();
+        IgniteBulkCommand<Boolean> command = (IgniteBulkCommand<Boolean>) deserialize(serialize(new IgniteBulkCommand<>(configuration, new TryConsumeCommand(3))));
+
+        EntryMock entry = new EntryMock();
+        assertTrue(command.process(entry));
+        assertEquals(97, entry.value.getBucketState().getValue(0));
+    }
+
+    @Test
+    public void createdStateShouldBeStoredOnlyWhenItIsModifiedOrNotFull() {
+        BucketConfiguration full = Buckets.withMillisTimePrecision().withLimitedBandwidth(100, MINUTES, 1).createConfiguration();
+        EntryMock entry = new EntryMock();
+        assertFalse(new IgniteCommand<>(new TryConsumeCommand(101), full).process(entry));
+        assertNull(entry.value);
+
+        BucketConfiguration empty = Buckets.withMillisTimePrecision().withLimitedBandwidth(100, MINUTES, 1, 0).createConfiguration();
+        assertFalse(new IgniteCommand<>(new TryConsumeCommand(1), empty).process(entry));
+        assertEquals(0, entry.value.getBucketState().getValue(0));
+    }
+
+    private static byte[] serialize(Object object) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    private static final class EntryMock implements MutableEntry<Object, GridBucketState> {
+
+        private GridBucketState value;
+
+        @Override
+        public boolean exists() {
+            return value != null;
+        }
+
+        @Override
+        public void remove() {
+            value = null;
+        }
+
+        @Override
+        public void setValue(GridBucketState value) {
+            this.value = value;
+        }
+
+        @Override
+        public Object getKey() {
+            return "key";
+        }
+
+        @Override
+        public GridBucketState getValue() {
+            return value;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> clazz) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
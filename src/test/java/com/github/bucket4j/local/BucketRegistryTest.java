@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.local;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketBuilder;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.mock.TimeMeterMock;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BucketRegistryTest {
+
+    @Test
+    public void shouldCreateBucketPerKeyLazily() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        BucketRegistry<String> registry = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(10, NANOSECONDS, 100)
+                .buildRegistry(1000, NANOSECONDS, 100);
+
+        assertEquals(0, registry.size());
+        assertNull(registry.getSnapshot("a"));
+        assertEquals(10, registry.consumeAsMuchAsPossible("a"));
+        assertFalse(registry.tryConsumeSingleToken("a"));
+        assertTrue(registry.tryConsume("b", 10));
+        assertEquals(2, registry.size());
+        assertNotNull(registry.getSnapshot("a"));
+    }
+
+    @Test
+    public void shouldCreateBucketsThroughFactory() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        BucketBuilder builder = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(10, NANOSECONDS, 100)
+                .withLockBasedSynchronization(0);
+        AtomicInteger createdBuckets = new AtomicInteger();
+        BucketRegistry<String> registry = new BucketRegistry<>(builder.createConfiguration(), () -> {
+            createdBuckets.incrementAndGet();
+            Bucket bucket = builder.build();
+            assertTrue(bucket instanceof LockBasedBucket);
+            return bucket;
+        }, 1000, 100);
+
+        assertTrue(registry.tryConsume("a", 1));
+        assertTrue(registry.tryConsume("a", 1));
+        assertTrue(registry.tryConsume("b", 1));
+        assertEquals(2, createdBuckets.get());
+    }
+
+    @Test
+    public void shouldEvictBucketsRefilledToInitialCapacity() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        BucketRegistry<String> registry = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(10, NANOSECONDS, 100)
+                .buildRegistry(1000, NANOSECONDS, 100);
+
+        assertTrue(registry.tryConsume("full", 1));
+        meter.addTime(10);
+        assertTrue(registry.tryConsume("partial", 5));
+
+        assertEquals(1, registry.cleanUp());
+        assertNull(registry.getSnapshot("full"));
+        assertNotNull(registry.getSnapshot("partial"));
+        assertEquals(5, registry.consumeAsMuchAsPossible("partial"));
+    }
+
+    @Test
+    public void shouldEvictIdleBuckets() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        BucketRegistry<String> registry = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(10, NANOSECONDS, 100_000)
+                .buildRegistry(1000, NANOSECONDS, 100);
+
+        registry.consumeAsMuchAsPossible("idle");
+        meter.addTime(500);
+        registry.consumeAsMuchAsPossible("active");
+        meter.addTime(500);
+
+        assertEquals(1, registry.cleanUp());
+        assertNull(registry.getSnapshot("idle"));
+        assertNotNull(registry.getSnapshot("active"));
+    }
+
+    @Test
+    public void shouldCleanUpWhenIdleTimeElapsedSincePreviousCleanUp() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        BucketRegistry<String> registry = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(10, NANOSECONDS, 100_000)
+                .buildRegistry(1000, NANOSECONDS, 100);
+
+        registry.consumeAsMuchAsPossible("first");
+        meter.addTime(1000);
+        registry.consumeAsMuchAsPossible("second");
+
+        assertEquals(1, registry.size());
+        assertNull(registry.getSnapshot("first"));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedBucketsWhenMaxBucketsExceeded() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        BucketRegistry<Integer> registry = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(10, NANOSECONDS, 100_000)
+                .buildRegistry(1_000_000, NANOSECONDS, 100);
+
+        for (int i = 0; i < 100; i++) {
+            registry.consumeAsMuchAsPossible(i);
+            meter.addTime(1);
+        }
+        assertEquals(100, registry.size());
+
+        registry.consumeAsMuchAsPossible(100);
+        assertTrue(registry.size() <= 100);
+        assertTrue(registry.size() >= 75);
+        assertNull(registry.getSnapshot(0));
+        assertNotNull(registry.getSnapshot(99));
+        assertNotNull(registry.getSnapshot(100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowNonPositiveMaxBuckets() {
+        Buckets.withNanoTimePrecision().withLimitedBandwidth(10, NANOSECONDS, 100).buildRegistry(1, NANOSECONDS, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowNonPositiveMaxIdleTime() {
+        Buckets.withNanoTimePrecision().withLimitedBandwidth(10, NANOSECONDS, 100).buildRegistry(0, NANOSECONDS, 10);
+    }
+
+    @Test
+    public void bucketsInUseShouldNotBeLostByConcurrentCleanUp() throws InterruptedException {
+        final BucketRegistry<Integer> registry = Buckets.withCustomTimePrecision(new TimeMeterMock(0))
+                .withLimitedBandwidth(100, NANOSECONDS, 100)
+                .buildRegistry(1_000_000, NANOSECONDS, 1000);
+        final int keyCount = 16;
+        final AtomicLong consumed = new AtomicLong();
+        int threadCount = 4;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch endLatch = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            final Random random = new Random(i);
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        for (int j = 0; j < 20_000; j++) {
+                            if (registry.tryConsumeSingleToken(random.nextInt(keyCount))) {
+                                consumed.incrementAndGet();
+                            }
+                            if (j % 16 == 0) {
+                                registry.cleanUp();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        endLatch.countDown();
+                    }
+                }
+            }).start();
+        }
+        startLatch.countDown();
+        endLatch.await();
+
+        assertEquals(keyCount * 100, consumed.get());
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.local;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.mock.BucketType;
+import com.github.bucket4j.mock.TimeMeterMock;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FairWaitingTest {
+
+    @Test
+    public void refilledTokensShouldBeHandedOffToWaiter() throws InterruptedException {
+        for (BucketType type : BucketType.values()) {
+            if (type == BucketType.GRID) {
+                continue;
+            }
+            TimeMeterMock meter = new TimeMeterMock();
+            Bucket bucket = type.createBucket(Buckets.withCustomTimePrecision(meter)
+                    .withLimitedBandwidth(10, NANOSECONDS, 100, 0));
+
+            bucket.consume(10);
+
+            // tokens refilled during waiting belong to the waiter, so nobody can overtake it
+            meter.setCurrentTime(50);
+            assertFalse(type.toString(), bucket.tryConsume(1));
+            meter.setCurrentTime(100);
+            assertFalse(type.toString(), bucket.tryConsume(1));
+            meter.setCurrentTime(110);
+            assertTrue(type.toString(), bucket.tryConsume(1));
+        }
+    }
+
+    @Test
+    public void largeRequestShouldNotBeStarvedByStreamOfSmallRequests() throws InterruptedException {
+        Bucket bucket = Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(100, MILLISECONDS, 100, 0)
+                .build();
+
+        AtomicBoolean stopped = new AtomicBoolean();
+        List<Thread> smallConsumers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread consumer = new Thread(() -> {
+                try {
+                    while (!stopped.get()) {
+                        bucket.consume(1);
+                    }
+                } catch (InterruptedException e) {
+                    // stopped
+                }
+            });
+            consumer.start();
+            smallConsumers.add(consumer);
+        }
+
+        try {
+            Thread.sleep(50);
+            long startNanos = System.nanoTime();
+            bucket.consume(100);
+            long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            // each small consumer can hold at most one reservation in front of the large one
+            assertTrue("Large request waited " + waitedMillis + " millis", waitedMillis < 1000);
+        } finally {
+            stopped.set(true);
+            for (Thread consumer : smallConsumers) {
+                consumer.join();
+            }
+        }
+    }
+
+}
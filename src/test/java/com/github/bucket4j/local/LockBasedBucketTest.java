@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.local;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.mock.TimeMeterMock;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LockBasedBucketTest {
+
+    @Test
+    public void builderShouldConstructLockBasedBucketWhenRequested() {
+        Bucket bucket = Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(10, NANOSECONDS, 100)
+                .withLockBasedSynchronization(16)
+                .build();
+        assertTrue(bucket instanceof LockBasedBucket);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowNegativeSpinAttempts() {
+        Buckets.withNanoTimePrecision().withLimitedBandwidth(10, NANOSECONDS, 100).withLockBasedSynchronization(-1);
+    }
+
+    @Test
+    public void shouldRespectAllBandwidths() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        Bucket bucket = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(100, NANOSECONDS, 1000)
+                .withLimitedBandwidth(10, NANOSECONDS, 10)
+                .withLockBasedSynchronization()
+                .build();
+
+        assertEquals(10, bucket.consumeAsMuchAsPossible());
+        assertFalse(bucket.tryConsume(1));
+        meter.addTime(10);
+        assertTrue(bucket.tryConsume(4));
+        assertEquals(6, bucket.consumeAsMuchAsPossible());
+        assertEquals(81, bucket.createSnapshot().getValue(0));
+    }
+
+    @Test
+    public void shouldWaitOutsideOfLock() throws InterruptedException {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        Bucket bucket = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(10, NANOSECONDS, 100, 0)
+                .withLockBasedSynchronization()
+                .build();
+
+        bucket.consume(2);
+        assertEquals(20, meter.getSleeped());
+        assertFalse(bucket.tryConsume(11, 1000));
+        assertFalse(bucket.tryConsume(5, 10));
+    }
+
+    @Test
+    public void concurrentConsumersShouldNotConsumeMoreThanCapacity() throws InterruptedException {
+        final Bucket bucket = Buckets.withCustomTimePrecision(new TimeMeterMock(0))
+                .withLimitedBandwidth(100_000, NANOSECONDS, 100)
+                .withLimitedBandwidth(1_000_000, NANOSECONDS, 1000)
+                .withLockBasedSynchronization(8)
+                .build();
+        final AtomicLong consumed = new AtomicLong();
+        int threadCount = 8;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch endLatch = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        for (int j = 0; j < 20_000; j++) {
+                            if (bucket.tryConsumeSingleToken()) {
+                                consumed.incrementAndGet();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        endLatch.countDown();
+                    }
+                }
+            }).start();
+        }
+        startLatch.countDown();
+        endLatch.await();
+
+        assertEquals(100_000, consumed.get());
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.local;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.mock.TimeMeterMock;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LockFreeBucketTest {
+
+    @Test
+    public void bucketsWithSameStateSizeShouldNotAffectEachOtherThroughScratchState() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        Bucket empty = new LockFreeBucket(Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(10, NANOSECONDS, 100, 0).createConfiguration());
+        Bucket full = new LockFreeBucket(Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(10, NANOSECONDS, 100, 10).createConfiguration());
+
+        assertFalse(empty.tryConsume(1));
+        assertTrue(full.tryConsume(3));
+        assertFalse(empty.tryConsume(1));
+        assertEquals(0, empty.consumeAsMuchAsPossible());
+        assertEquals(7, full.consumeAsMuchAsPossible());
+        assertFalse(full.tryConsume(1));
+
+        meter.addTime(10);
+        assertTrue(empty.tryConsume(1));
+        assertTrue(full.tryConsume(1));
+        assertFalse(empty.tryConsume(1));
+        assertFalse(full.tryConsume(1));
+    }
+
+    @Test
+    public void bucketsWithDifferentStateSizeShouldShareThreadWithoutInterference() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        Bucket single = new LockFreeBucket(Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(10, NANOSECONDS, 100, 2).createConfiguration());
+        Bucket multiple = new LockFreeBucket(Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(10, NANOSECONDS, 100, 5)
+                .withLimitedBandwidth(3, NANOSECONDS, 10, 1)
+                .withLimitedBandwidth(1, NANOSECONDS, 1, 1)
+                .createConfiguration());
+
+        assertTrue(multiple.tryConsume(1));
+        assertFalse(multiple.tryConsume(1));
+        assertEquals(2, single.consumeAsMuchAsPossible());
+        assertFalse(single.tryConsume(1));
+        assertEquals(4, multiple.createSnapshot().getValue(0));
+    }
+
+}
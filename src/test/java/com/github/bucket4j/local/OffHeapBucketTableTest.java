@@ -0,0 +1,160 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.local;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketBuilder;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.mock.TimeMeterMock;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OffHeapBucketTableTest {
+
+    @Test
+    public void shouldHoldIndependentBucketPerKey() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        OffHeapBucketTable table = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(10, NANOSECONDS, 100)
+                .withLimitedBandwidth(3, NANOSECONDS, 10)
+                .buildOffHeapTable(100);
+
+        assertNull(table.createSnapshot(42));
+        assertEquals(3, table.consumeAsMuchAsPossible(42));
+        assertFalse(table.tryConsumeSingleToken(42));
+        assertTrue(table.tryConsume(-42, 3));
+        assertEquals(2, table.size());
+
+        meter.addTime(10);
+        assertEquals(3, table.consumeAsMuchAsPossible(42, 5));
+        assertEquals(5, table.createSnapshot(42).getValue(0));
+    }
+
+    @Test
+    public void shouldBehaveAsHeapBucketsWhenKeysCollide() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        BucketBuilder builder = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(10, NANOSECONDS, 100)
+                .withLimitedBandwidth(3, NANOSECONDS, 7);
+        OffHeapBucketTable table = builder.buildOffHeapTable(64, 1);
+        Map<Long, Bucket> buckets = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(48) * 0x1_0000_0001L;
+            Bucket bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = new LockFreeBucket(builder.createConfiguration());
+                buckets.put(key, bucket);
+            }
+            if (random.nextBoolean()) {
+                long tokens = 1 + random.nextInt(4);
+                assertEquals(bucket.tryConsume(tokens), table.tryConsume(key, tokens));
+            } else {
+                assertEquals(bucket.consumeAsMuchAsPossible(3), table.consumeAsMuchAsPossible(key, 3));
+            }
+            if (random.nextInt(100) == 0) {
+                table.cleanUp();
+            }
+            meter.addTime(random.nextInt(3));
+        }
+    }
+
+    @Test
+    public void shouldReclaimSlotsRefilledToInitialCapacity() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        OffHeapBucketTable table = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(10, NANOSECONDS, 100)
+                .buildOffHeapTable(3, 1);
+
+        assertTrue(table.tryConsume(1, 10));
+        assertTrue(table.tryConsume(2, 1));
+        assertTrue(table.tryConsume(3, 1));
+        meter.addTime(10);
+        assertTrue(table.tryConsume(4, 1));
+
+        assertEquals(2, table.size());
+        assertNull(table.createSnapshot(2));
+        assertNull(table.createSnapshot(3));
+        assertNotNull(table.createSnapshot(1));
+        assertEquals(1, table.consumeAsMuchAsPossible(1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldThrowExceptionWhenThereIsNoFreeSlot() {
+        OffHeapBucketTable table = Buckets.withCustomTimePrecision(new TimeMeterMock(0))
+                .withLimitedBandwidth(10, NANOSECONDS, 100)
+                .buildOffHeapTable(3, 1);
+        for (long key = 0; key < 4; key++) {
+            table.tryConsume(key, 1);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowNonPositiveSegmentCount() {
+        Buckets.withNanoTimePrecision().withLimitedBandwidth(10, NANOSECONDS, 100).buildOffHeapTable(10, 0);
+    }
+
+    @Test
+    public void concurrentConsumersShouldNotConsumeMoreThanCapacity() throws InterruptedException {
+        final OffHeapBucketTable table = Buckets.withCustomTimePrecision(new TimeMeterMock(0))
+                .withLimitedBandwidth(100, NANOSECONDS, 100)
+                .buildOffHeapTable(1000, 4);
+        final int keyCount = 64;
+        final AtomicLong consumed = new AtomicLong();
+        int threadCount = 4;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch endLatch = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            final Random random = new Random(i);
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        for (int j = 0; j < 20_000; j++) {
+                            if (table.tryConsumeSingleToken(random.nextInt(keyCount))) {
+                                consumed.incrementAndGet();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        endLatch.countDown();
+                    }
+                }
+            }).start();
+        }
+        startLatch.countDown();
+        endLatch.await();
+
+        assertEquals(keyCount * 100, consumed.get());
+    }
+
+}
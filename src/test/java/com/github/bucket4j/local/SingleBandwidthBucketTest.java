@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.local;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketBuilder;
+import com.github.bucket4j.BucketState;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.mock.AdjusterMock;
+import com.github.bucket4j.mock.TimeMeterMock;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SingleBandwidthBucketTest {
+
+    @Test
+    public void builderShouldSelectSpecializedBucketOnlyForSingleLimitedBandwidth() {
+        assertTrue(Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(10, NANOSECONDS, 100).build() instanceof SingleBandwidthBucket);
+        assertTrue(Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(10, NANOSECONDS, 100).withLimitedBandwidth(100, NANOSECONDS, 10000)
+                .build() instanceof LockFreeBucket);
+        assertTrue(Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(10, NANOSECONDS, 100).withGuaranteedBandwidth(1, NANOSECONDS, 100)
+                .build() instanceof LockFreeBucket);
+        assertTrue(Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(new AdjusterMock(10), NANOSECONDS, 100, 10)
+                .build() instanceof LockFreeBucket);
+        assertTrue(Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(10, NANOSECONDS, 100, 11)
+                .build() instanceof LockFreeBucket);
+        assertTrue(Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(Long.MAX_VALUE / 2, NANOSECONDS, Long.MAX_VALUE / 2)
+                .build() instanceof LockFreeBucket);
+    }
+
+    @Test
+    public void shouldBehaveExactlyAsLockFreeBucket() {
+        Random random = new Random(42);
+        for (int round = 0; round < 100; round++) {
+            long capacity = 1 + random.nextInt(1000);
+            long period = 1 + random.nextInt(1000);
+            long initialCapacity = random.nextInt((int) capacity + 1);
+            TimeMeterMock meter = new TimeMeterMock(random.nextInt(1000));
+            BucketBuilder builder = Buckets.withCustomTimePrecision(meter).withLimitedBandwidth(capacity, NANOSECONDS, period, initialCapacity);
+            Bucket specialized = new SingleBandwidthBucket(builder.createConfiguration());
+            Bucket generic = new LockFreeBucket(builder.createConfiguration());
+
+            for (int i = 0; i < 1000; i++) {
+                meter.addTime(random.nextInt((int) period));
+                long tokens = 1 + random.nextInt((int) capacity * 2);
+                String msg = "round " + round + ", step " + i;
+                if (random.nextBoolean()) {
+                    assertEquals(msg, generic.tryConsume(tokens), specialized.tryConsume(tokens));
+                } else {
+                    assertEquals(msg, generic.consumeAsMuchAsPossible(tokens), specialized.consumeAsMuchAsPossible(tokens));
+                }
+                BucketState genericState = generic.createSnapshot();
+                genericState.refill(generic.getConfiguration().getBandwidths(), meter.currentTime());
+                BucketState specializedState = specialized.createSnapshot();
+                specializedState.refill(specialized.getConfiguration().getBandwidths(), meter.currentTime());
+                assertArrayEquals(msg, genericState.createSnapshot(), specializedState.createSnapshot());
+            }
+        }
+    }
+
+    @Test
+    public void shouldBeFullAfterVeryLongIdle() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        Bucket bucket = Buckets.withCustomTimePrecision(meter).withLimitedBandwidth(1_000_000, NANOSECONDS, 1_000_000_000).build();
+        assertEquals(1_000_000, bucket.consumeAsMuchAsPossible());
+
+        // scaled clock wraps around after Long.MAX_VALUE / capacity
+        meter.addTime(Long.MAX_VALUE / 1_000_000 + 1);
+        assertEquals(1_000_000, bucket.consumeAsMuchAsPossible());
+        assertFalse(bucket.tryConsume(1));
+    }
+
+    @Test
+    public void shouldSleepUntilTokensWillBeRefilled() throws InterruptedException {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        Bucket bucket = Buckets.withCustomTimePrecision(meter).withLimitedBandwidth(3, NANOSECONDS, 10, 0).build();
+        bucket.consume(2);
+        assertEquals(7, meter.getSleeped());
+        assertFalse(bucket.tryConsume(2, 6));
+        assertFalse(bucket.tryConsume(4));
+    }
+
+    @Test
+    public void waitingConsumerShouldReserveTokensAndSleepExactlyOnce() throws InterruptedException {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        Bucket bucket = Buckets.withCustomTimePrecision(meter).withLimitedBandwidth(10, NANOSECONDS, 100, 0).build();
+        assertTrue(bucket instanceof SingleBandwidthBucket);
+
+        bucket.consume(5);
+        assertEquals(1, meter.getSleeps());
+        assertEquals(50, meter.getSleeped());
+
+        bucket.consume(5);
+        assertEquals(2, meter.getSleeps());
+        assertEquals(100, meter.getSleeped());
+        assertFalse(bucket.tryConsume(1));
+    }
+
+    @Test
+    public void debtOfWaitersShouldBePaidOffByRefill() throws InterruptedException {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        Bucket bucket = Buckets.withCustomTimePrecision(meter).withLimitedBandwidth(10, NANOSECONDS, 100, 0).build();
+
+        // time is rewound after each consumption, so the bucket looks as if three consumers were still waiting for reserved tokens
+        for (int i = 0; i < 3; i++) {
+            bucket.consume(9);
+            meter.setCurrentTime(0);
+        }
+        assertEquals(-27, bucket.createSnapshot().getValue(0));
+
+        meter.setCurrentTime(250);
+        assertEquals(0, bucket.consumeAsMuchAsPossible());
+        bucket.addTokens(1);
+        assertEquals(-1, bucket.createSnapshot().getValue(0));
+        meter.setCurrentTime(300);
+        assertEquals(4, bucket.consumeAsMuchAsPossible());
+        meter.setCurrentTime(10_000);
+        assertEquals(10, bucket.consumeAsMuchAsPossible());
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.github.bucket4j.local;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.mock.TimeMeterMock;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StripedBucketTest {
+
+    @Test
+    public void shouldNotAllowToConsumeMoreThanCapacity() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        Bucket bucket = Buckets.withCustomTimePrecision(meter).withLimitedBandwidth(10, NANOSECONDS, 100).buildStriped(4);
+
+        assertEquals(10, bucket.consumeAsMuchAsPossible());
+        assertFalse(bucket.tryConsume(1));
+
+        meter.addTime(100);
+        assertEquals(10, bucket.createSnapshot().getAvailableTokens(bucket.getConfiguration().getBandwidths()));
+        assertTrue(bucket.tryConsume(10));
+        assertFalse(bucket.tryConsume(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowGuaranteedBandwidth() {
+        Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(10, NANOSECONDS, 100)
+                .withGuaranteedBandwidth(1, NANOSECONDS, 100)
+                .buildStriped(4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorShouldNotAllowGuaranteedBandwidth() {
+        new StripedBucket(Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(10, NANOSECONDS, 100)
+                .withGuaranteedBandwidth(1, NANOSECONDS, 100)
+                .createConfiguration(), 4);
+    }
+
+    @Test
+    public void stripeCountShouldNotExceedCapacity() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        Bucket bucket = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(100, NANOSECONDS, 1000)
+                .withLimitedBandwidth(3, NANOSECONDS, 10)
+                .buildStriped(8);
+
+        assertTrue(bucket.toString().contains("stripes=3"));
+        assertEquals(3, bucket.consumeAsMuchAsPossible());
+    }
+
+    @Test
+    public void addedTokensShouldBeMovedToStripesWithRoom() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        Bucket bucket = Buckets.withCustomTimePrecision(meter).withLimitedBandwidth(10, NANOSECONDS, 100).buildStriped(2);
+
+        // own stripe of current thread is emptied, sibling stripe stays full
+        assertEquals(5, bucket.consumeAsMuchAsPossible(5));
+        bucket.addTokens(4);
+        assertEquals(9, bucket.consumeAsMuchAsPossible());
+    }
+
+    @Test
+    public void shouldBorrowTokensFromSiblingStripes() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        Bucket bucket = Buckets.withCustomTimePrecision(meter).withLimitedBandwidth(10, NANOSECONDS, 100).buildStriped(4);
+
+        // own stripe of current thread holds at most 3 tokens
+        assertTrue(bucket.tryConsume(7));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryConsume(1));
+        }
+        assertFalse(bucket.tryConsume(1));
+    }
+
+    @Test
+    public void shouldReturnBorrowedTokensWhenConsumptionFailed() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        Bucket bucket = Buckets.withCustomTimePrecision(meter).withLimitedBandwidth(10, NANOSECONDS, 100).buildStriped(4);
+
+        assertTrue(bucket.tryConsume(8));
+        assertFalse(bucket.tryConsume(3));
+        assertEquals(2, bucket.consumeAsMuchAsPossible());
+    }
+
+    @Test
+    public void shouldRespectAllBandwidths() {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        Bucket bucket = Buckets.withCustomTimePrecision(meter)
+                .withLimitedBandwidth(100, NANOSECONDS, 1000)
+                .withLimitedBandwidth(10, NANOSECONDS, 10)
+                .buildStriped(3);
+
+        assertEquals(10, bucket.consumeAsMuchAsPossible());
+        meter.addTime(10);
+        assertEquals(10, bucket.consumeAsMuchAsPossible());
+        assertEquals(80, bucket.createSnapshot().getValue(0));
+    }
+
+    @Test
+    public void shouldWaitUntilTokensWillBeRefilledOnStripes() throws InterruptedException {
+        TimeMeterMock meter = new TimeMeterMock(0);
+        Bucket bucket = Buckets.withCustomTimePrecision(meter).withLimitedBandwidth(10, NANOSECONDS, 100, 0).buildStriped(2);
+
+        bucket.consume(2);
+        assertTrue(meter.getSleeped() >= 20);
+        assertTrue(meter.getSleeped() <= 40);
+        assertFalse(bucket.tryConsume(11, 1000));
+    }
+
+    @Test(timeout = 10000)
+    public void concurrentConsumersShouldConsumeExactlyCapacity() throws InterruptedException {
+        final Bucket bucket = Buckets.withCustomTimePrecision(new TimeMeterMock(0))
+                .withLimitedBandwidth(100_000, NANOSECONDS, 100).buildStriped(4);
+        final AtomicLong consumed = new AtomicLong();
+        final int threadCount = 8;
+        final CountDownLatch endLatch = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < 20_000; j++) {
+                            if (bucket.tryConsume(1 + j % 3)) {
+                                consumed.addAndGet(1 + j % 3);
+                            }
+                        }
+                    } finally {
+                        endLatch.countDown();
+                    }
+                }
+            }.start();
+        }
+        endLatch.await();
+
+        long rest = bucket.consumeAsMuchAsPossible();
+        assertEquals(100_000, consumed.get() + rest);
+    }
+
+}
@@ -18,6 +18,8 @@ package com.github.bucket4j.mock;
 
 import com.github.bucket4j.Bucket;
 import com.github.bucket4j.BucketBuilder;
+import com.github.bucket4j.local.LockBasedBucket;
+import com.github.bucket4j.local.LockFreeBucket;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -30,6 +32,18 @@ public enum BucketType {
             return builder.build();
         }
     },
+    LOCAL_LOCK_FREE {
+        @Override
+        public Bucket createBucket(BucketBuilder builder) {
+            return new LockFreeBucket(builder.createConfiguration());
+        }
+    },
+    LOCAL_LOCK_BASED {
+        @Override
+        public Bucket createBucket(BucketBuilder builder) {
+            return new LockBasedBucket(builder.createConfiguration(), 1);
+        }
+    },
     GRID {
         @Override
         public Bucket createBucket(BucketBuilder builder) {
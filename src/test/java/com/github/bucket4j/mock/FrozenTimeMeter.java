@@ -0,0 +1,49 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.github.bucket4j.mock;
+
+import com.github.bucket4j.TimeMeter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time meter which is advanced only explicitly by test, it is useful to check behaviour of non-blocking consumers at exact moments of time.
+ * Sleeping is not supported, because waiting consumer sleeps until time meter reaches the deadline.
+ */
+public class FrozenTimeMeter implements TimeMeter {
+
+    private long currentTime;
+
+    public void setCurrentTime(long currentTime) {
+        this.currentTime = currentTime;
+    }
+
+    @Override
+    public long currentTime() {
+        return currentTime;
+    }
+
+    @Override
+    public void sleep(long units) throws InterruptedException {
+        throw new UnsupportedOperationException("time is frozen, sleeping never ends");
+    }
+
+    @Override
+    public long toBandwidthPeriod(TimeUnit timeUnit, long period) {
+        return period;
+    }
+
+}
@@ -17,6 +17,7 @@
 package com.github.bucket4j.mock;
 
 
+import com.github.bucket4j.BucketConfiguration;
 import com.github.bucket4j.grid.GridBucketState;
 import com.github.bucket4j.grid.GridCommand;
 import com.github.bucket4j.grid.GridProxy;
@@ -33,8 +34,8 @@ public class GridProxyMock implements GridProxy {
     }
 
     @Override
-    public void setInitialState(GridBucketState initialState) {
-        this.state = initialState;
+    public void setConfiguration(BucketConfiguration configuration) {
+        this.state = GridBucketState.createInitialState(configuration);
     }
 
 }
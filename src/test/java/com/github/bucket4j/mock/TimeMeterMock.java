@@ -27,6 +27,7 @@ public class TimeMeterMock implements TimeMeter {
 
     private long currentTime;
     private long sleeped = 0;
+    private int sleeps = 0;
     private long incrementAfterEachSleep;
 
     public TimeMeterMock() {
@@ -53,6 +54,10 @@ public class TimeMeterMock implements TimeMeter {
         return sleeped;
     }
 
+    public int getSleeps() {
+        return sleeps;
+    }
+
     @Override
     public long currentTime() {
         return currentTime;
@@ -65,6 +70,7 @@ public class TimeMeterMock implements TimeMeter {
         }
         currentTime += units + incrementAfterEachSleep;
         sleeped += units;
+        sleeps++;
     }
 
     @Override
@@ -75,6 +81,7 @@ public class TimeMeterMock implements TimeMeter {
     public void reset() {
         currentTime = 0;
         sleeped = 0;
+        sleeps = 0;
     }
 
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package realworld.grid;
+
+import com.github.bucket4j.BucketConfiguration;
+import com.github.bucket4j.grid.GridBucketExpiration;
+import com.github.bucket4j.grid.GridBucketTable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Churns through new keys for several times to live of grid entry and checks that size of the grid stays bounded,
+ * then checks that all buckets expire when keys are not used anymore.
+ */
+public class ExpirationScenario {
+
+    private static final int KEYS_PER_ROUND = 100;
+    private static final long ROUND_MILLIS = 50;
+    private static final int CHURN_TIMES_TO_LIVE = 3;
+    // entries created during last time to live are alive, plus tolerance for lag of expiration
+    private static final int SIZE_BOUND_TIMES_TO_LIVE = 2;
+
+    private final GridBucketTable<String> table;
+    private final LongSupplier gridSize;
+    private final long capacity;
+    private final long timeToLiveMillis;
+
+    public ExpirationScenario(GridBucketTable<String> table, BucketConfiguration configuration, LongSupplier gridSize) {
+        this.table = table;
+        this.gridSize = gridSize;
+        this.capacity = configuration.getBandwidth(0).getMaxCapacity(0);
+        this.timeToLiveMillis = GridBucketExpiration.getTimeToLiveMillis(configuration);
+    }
+
+    public void execute() throws InterruptedException {
+        long roundsPerTimeToLive = Math.max(1, timeToLiveMillis / ROUND_MILLIS);
+        long maxSize = KEYS_PER_ROUND * roundsPerTimeToLive * SIZE_BOUND_TIMES_TO_LIVE;
+        long rounds = roundsPerTimeToLive * CHURN_TIMES_TO_LIVE;
+        // without expiration grid would hold all keys which were ever used
+        assertTrue(rounds * KEYS_PER_ROUND > maxSize);
+
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < KEYS_PER_ROUND; i++) {
+                assertTrue(table.tryConsume("user-" + round + "-" + i, capacity));
+            }
+            long size = gridSize.getAsLong();
+            assertTrue("Size of grid " + size + " exceeds " + maxSize + " at round " + round, size <= maxSize);
+            Thread.sleep(ROUND_MILLIS);
+        }
+
+        long deadline = System.currentTimeMillis() + timeToLiveMillis + TimeUnit.SECONDS.toMillis(30);
+        while (gridSize.getAsLong() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertEquals(0, gridSize.getAsLong());
+        // expired bucket is initialized as full
+        assertTrue(table.tryConsume("user-0-0", capacity));
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package realworld.grid;
+
+import com.github.bucket4j.AsyncBucket;
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketBatch;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.grid.GridBucketState;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HazelcastAsyncTest {
+
+    private static final String KEY = "42";
+    private static final int REQUESTS = 20_000;
+    private static final int MAX_IN_FLIGHT = 256;
+    private static final long CAPACITY = 5_000;
+
+    private IMap<Object, GridBucketState> imap;
+    private HazelcastInstance hazelcastInstance;
+
+    @Before
+    public void setup() {
+        hazelcastInstance = Hazelcast.newHazelcastInstance();
+        imap = hazelcastInstance.getMap("my_buckets");
+    }
+
+    @After
+    public void shutdown() {
+        hazelcastInstance.shutdown();
+    }
+
+    @Test
+    public void manyInFlightRequestsShouldNotConsumeMoreThanCapacity() throws Exception {
+        AsyncBucket bucket = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(CAPACITY, TimeUnit.DAYS, 1)
+                .buildHazelcast(imap, KEY)
+                .asAsync();
+
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        CountDownLatch completed = new CountDownLatch(REQUESTS);
+        AtomicLong consumed = new AtomicLong();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            inFlight.acquire();
+            bucket.tryConsumeSingleToken().whenComplete((success, error) -> {
+                if (error != null) {
+                    failure.compareAndSet(null, error);
+                } else if (success) {
+                    consumed.incrementAndGet();
+                }
+                inFlight.release();
+                completed.countDown();
+            });
+        }
+        assertTrue(completed.await(1, TimeUnit.MINUTES));
+        long durationNanos = System.nanoTime() - startNanos;
+        System.out.println("Executed " + REQUESTS + " async requests with " + MAX_IN_FLIGHT + " in flight in "
+                + TimeUnit.NANOSECONDS.toMillis(durationNanos) + " millis, "
+                + (REQUESTS * TimeUnit.SECONDS.toNanos(1) / durationNanos) + " requests per second");
+
+        assertNull(failure.get());
+        assertEquals(CAPACITY, consumed.get());
+        assertEquals(0L, (long) bucket.consumeAsMuchAsPossible().get());
+    }
+
+    @Test
+    public void batchShouldRollbackConsumptionWhenAnyLimitIsExceeded() {
+        Bucket user = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.DAYS, 1)
+                .buildHazelcast(imap, "user");
+        Bucket tenant = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(15, TimeUnit.DAYS, 1)
+                .buildHazelcast(imap, "tenant");
+
+        assertTrue(BucketBatch.tryConsume(8, user, tenant));
+        assertFalse(BucketBatch.tryConsume(5, user, tenant));
+        assertEquals(2, user.consumeAsMuchAsPossible());
+        assertEquals(7, tenant.consumeAsMuchAsPossible());
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package realworld.grid;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketBuilder;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.grid.GridBucketState;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class HazelcastBackupTest {
+
+    private static final int KEYS = 100;
+
+    @After
+    public void shutdown() {
+        Hazelcast.shutdownAll();
+    }
+
+    @Test
+    public void snapshotBackupShouldSurviveLossOfMember() {
+        checkBackup(Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.DAYS, 1));
+    }
+
+    @Test
+    public void replayedBackupShouldSurviveLossOfMember() {
+        checkBackup(Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.DAYS, 1)
+                .withBackupByCommandReplay());
+    }
+
+    private void checkBackup(BucketBuilder builder) {
+        HazelcastInstance first = Hazelcast.newHazelcastInstance();
+        HazelcastInstance second = Hazelcast.newHazelcastInstance();
+        IMap<Object, GridBucketState> imap = first.getMap("my_buckets");
+
+        for (int key = 0; key < KEYS; key++) {
+            Bucket bucket = builder.buildHazelcast(imap, key);
+            bucket.tryConsume(3);
+            bucket.tryConsume(4);
+        }
+
+        second.shutdown();
+        for (int key = 0; key < KEYS; key++) {
+            assertEquals(3, builder.buildHazelcast(imap, key).consumeAsMuchAsPossible());
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package realworld.grid;
+
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.GridBucketTable;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HazelcastBulkTest {
+
+    private static final int KEYS = 1_000;
+
+    private HazelcastInstance first;
+    private HazelcastInstance second;
+
+    @Before
+    public void setup() {
+        first = Hazelcast.newHazelcastInstance();
+        second = Hazelcast.newHazelcastInstance();
+    }
+
+    @After
+    public void shutdown() {
+        Hazelcast.shutdownAll();
+    }
+
+    @Test
+    public void shouldConsumeFromEachKeyIndependently() {
+        IMap<Object, GridBucketState> imap = first.getMap("my_buckets");
+        GridBucketTable<String> table = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.DAYS, 1)
+                .buildHazelcastTable(imap);
+
+        Map<String, Long> tokensByKey = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            tokensByKey.put("user-" + i, (long) (i % 10 + 1));
+        }
+        Map<String, Boolean> results = table.tryConsume(tokensByKey);
+        assertEquals(KEYS, results.size());
+        assertEquals(KEYS, imap.size());
+        for (Boolean consumed : results.values()) {
+            assertTrue(consumed);
+        }
+
+        // only keys which have consumed 5 tokens or less are able to consume 5 tokens more
+        for (String key : tokensByKey.keySet()) {
+            tokensByKey.put(key, 5L);
+        }
+        results = table.tryConsume(tokensByKey);
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals(i % 10 + 1 <= 5, results.get("user-" + i));
+        }
+    }
+
+    @Test
+    public void consumedTokensShouldSurviveLossOfMember() {
+        IMap<Object, GridBucketState> imap = first.getMap("my_buckets");
+        GridBucketTable<String> table = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.DAYS, 1)
+                .buildHazelcastTable(imap);
+
+        Map<String, Long> tokensByKey = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            tokensByKey.put("user-" + i, 7L);
+        }
+        table.tryConsume(tokensByKey);
+
+        second.shutdown();
+        assertEquals(KEYS, imap.size());
+        for (int i = 0; i < KEYS; i++) {
+            Map<String, Boolean> result = table.tryConsume(Collections.singletonMap("user-" + i, 4L));
+            assertFalse(result.get("user-" + i));
+        }
+    }
+
+    @Test
+    public void shouldConsumeByKeyWithoutBucketPerKey() {
+        IMap<Object, GridBucketState> imap = first.getMap("my_buckets");
+        GridBucketTable<String> table = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.DAYS, 1)
+                .buildHazelcastTable(imap);
+
+        assertEquals(10, table.createSnapshot("user").getAvailableTokens(table.getConfiguration().getBandwidths()));
+        assertEquals(0, imap.size());
+
+        assertTrue(table.tryConsume("user", 7));
+        assertFalse(table.tryConsume("user", 4));
+        table.addTokens("user", 1);
+        assertEquals(4, table.consumeAsMuchAsPossible("user"));
+        assertFalse(table.tryConsumeSingleToken("user"));
+        assertTrue(table.tryConsumeSingleToken("another-user"));
+        assertEquals(2, imap.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveTokens() {
+        IMap<Object, GridBucketState> imap = first.getMap("my_buckets");
+        GridBucketTable<String> table = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.DAYS, 1)
+                .buildHazelcastTable(imap);
+        table.tryConsume(Collections.singletonMap("user", 0L));
+    }
+
+}
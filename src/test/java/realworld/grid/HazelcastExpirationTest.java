@@ -0,0 +1,53 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package realworld.grid;
+
+import com.github.bucket4j.BucketBuilder;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.GridBucketTable;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class HazelcastExpirationTest {
+
+    @After
+    public void shutdown() {
+        Hazelcast.shutdownAll();
+    }
+
+    @Test
+    public void idleBucketsShouldExpire() throws Exception {
+        // time to live of Hazelcast map is measured in whole seconds, so period is longer than in Ignite test
+        BucketBuilder builder = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.MILLISECONDS, 500)
+                .withGridEntryExpiration();
+        HazelcastInstance hazelcastInstance = Hazelcast.newHazelcastInstance();
+        GridBucketTable<String> table = builder.buildHazelcastTable(hazelcastInstance, "my_buckets");
+        IMap<Object, GridBucketState> imap = hazelcastInstance.getMap("my_buckets");
+        assertEquals(1, hazelcastInstance.getConfig().getMapConfig("my_buckets").getTimeToLiveSeconds());
+
+        new ExpirationScenario(table, builder.createConfiguration(), imap::size).execute();
+    }
+
+}
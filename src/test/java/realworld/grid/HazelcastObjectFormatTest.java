@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package realworld.grid;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketBuilder;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.grid.GridConfigurationRegistry;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HazelcastObjectFormatTest {
+
+    private static final String CONFIGURATION_ID = "object-format-limits";
+
+    private HazelcastInstance first;
+
+    @Before
+    public void setup() {
+        Config config = new Config();
+        config.addMapConfig(new MapConfig("object_buckets").setInMemoryFormat(InMemoryFormat.OBJECT));
+        first = Hazelcast.newHazelcastInstance(config);
+        Hazelcast.newHazelcastInstance(config);
+    }
+
+    @After
+    public void shutdown() {
+        Hazelcast.shutdownAll();
+        GridConfigurationRegistry.unregister(CONFIGURATION_ID);
+    }
+
+    @Test
+    public void shouldConsumeFromObjectFormatMap() {
+        BucketBuilder builder = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.DAYS, 1);
+        GridConfigurationRegistry.register(CONFIGURATION_ID, builder.createConfiguration());
+
+        for (int key = 0; key < 100; key++) {
+            Bucket bucket = builder.buildHazelcast(first, "object_buckets", key);
+            assertTrue(bucket.tryConsume(7));
+            assertFalse(bucket.tryConsume(4));
+            assertEquals(3, bucket.createSnapshot().getAvailableTokens(builder.createConfiguration().getBandwidths()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnregisteredConfigurationForObjectFormat() {
+        Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.DAYS, 1)
+                .buildHazelcast(first, "object_buckets", "key");
+    }
+
+    @Test
+    public void binaryFormatShouldNotRequireRegistration() {
+        Bucket bucket = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.DAYS, 1)
+                .buildHazelcast(first, "binary_buckets", "key");
+        assertTrue(bucket.tryConsume(10));
+    }
+
+}
@@ -30,6 +30,7 @@ import realworld.ConsumptionScenario;
 
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class HazelcastTest {
@@ -73,4 +74,34 @@ public class HazelcastTest {
         assertTrue(rest >= available);
     }
 
+    @Test
+    public void snapshotShouldBeReadWithoutModificationOfEntry() throws Exception {
+        Bucket bucket = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.DAYS, 1)
+                .buildHazelcast(imap, KEY);
+        bucket.tryConsume(3);
+        long version = imap.getEntryView(KEY).getVersion();
+
+        BucketState snapshot = bucket.createSnapshot();
+        BucketState asyncSnapshot = bucket.asAsync().createSnapshot().get();
+
+        assertEquals(7, snapshot.getAvailableTokens(bucket.getConfiguration().getBandwidths()));
+        assertEquals(7, asyncSnapshot.getAvailableTokens(bucket.getConfiguration().getBandwidths()));
+        assertEquals(version, imap.getEntryView(KEY).getVersion());
+    }
+
+    @Test
+    public void bucketShouldBeStoredOnlyAfterFirstModification() {
+        Bucket bucket = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.DAYS, 1)
+                .buildHazelcast(imap, KEY);
+        assertEquals(0, imap.size());
+        assertEquals(10, bucket.createSnapshot().getAvailableTokens(bucket.getConfiguration().getBandwidths()));
+        assertEquals(0, imap.size());
+
+        assertTrue(bucket.tryConsume(3));
+        assertEquals(1, imap.size());
+        assertEquals(7, bucket.consumeAsMuchAsPossible());
+    }
+
 }
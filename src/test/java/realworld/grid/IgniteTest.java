@@ -16,9 +16,12 @@
 
 package realworld.grid;
 
+import com.github.bucket4j.AsyncBucket;
 import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketBuilder;
 import com.github.bucket4j.BucketState;
 import com.github.bucket4j.Buckets;
+import com.github.bucket4j.grid.GridBucketTable;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCache;
 import org.apache.ignite.Ignition;
@@ -28,8 +31,12 @@ import org.junit.Before;
 import org.junit.Test;
 import realworld.ConsumptionScenario;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class IgniteTest {
@@ -75,4 +82,47 @@ public class IgniteTest {
         assertTrue(rest >= available);
     }
 
+    @Test
+    public void testAsync() throws Exception {
+        AsyncBucket bucket = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.DAYS, 1)
+                .buildIgnite(cache, KEY)
+                .asAsync();
+
+        assertTrue(bucket.tryConsume(7).get());
+        assertFalse(bucket.tryConsume(4).get());
+        assertEquals(3L, bucket.createSnapshot().get().getValue(0));
+        assertEquals(3L, (long) bucket.consumeAsMuchAsPossible().get());
+    }
+
+    @Test
+    public void testBulk() throws Exception {
+        GridBucketTable<String> table = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.DAYS, 1)
+                .buildIgniteTable(cache);
+
+        Map<String, Long> tokensByKey = new HashMap<>();
+        tokensByKey.put("first", 7L);
+        tokensByKey.put("second", 3L);
+        Map<String, Boolean> results = table.tryConsume(tokensByKey);
+        assertTrue(results.get("first"));
+        assertTrue(results.get("second"));
+
+        tokensByKey.put("first", 4L);
+        tokensByKey.put("second", 4L);
+        results = table.tryConsume(tokensByKey);
+        assertFalse(results.get("first"));
+        assertTrue(results.get("second"));
+    }
+
+    @Test
+    public void idleBucketsShouldExpire() throws Exception {
+        BucketBuilder builder = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.MILLISECONDS, 100)
+                .withGridEntryExpiration();
+        GridBucketTable<String> table = builder.buildIgniteTable(cache);
+
+        new ExpirationScenario(table, builder.createConfiguration(), cache::size).execute();
+    }
+
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015 Vladimir Bukhtoyarov
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package realworld.grid;
+
+import com.github.bucket4j.Bucket;
+import com.github.bucket4j.BucketState;
+import com.github.bucket4j.Buckets;
+import com.github.bucket4j.grid.GridBucketState;
+import com.github.bucket4j.grid.GridBucketTable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import realworld.ConsumptionScenario;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.spi.CachingProvider;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks JCache backend against reference implementation of JSR-107.
+ */
+public class JCacheTest {
+
+    private static final String KEY = "42";
+    private CacheManager cacheManager;
+    private Cache<Object, GridBucketState> cache;
+
+    @Before
+    public void setup() {
+        CachingProvider cachingProvider = Caching.getCachingProvider("org.jsr107.ri.spi.RICachingProvider");
+        cacheManager = cachingProvider.getCacheManager();
+        cache = cacheManager.createCache("my_buckets", new MutableConfiguration<Object, GridBucketState>());
+    }
+
+    @After
+    public void shutdown() {
+        cacheManager.close();
+    }
+
+    @Test
+    public void test15Seconds() throws Exception {
+        Bucket bucket = Buckets.withNanoTimePrecision()
+                .withLimitedBandwidth(1_000l, TimeUnit.MINUTES, 1, 0)
+                .withLimitedBandwidth(200l, TimeUnit.SECONDS, 10, 0)
+                .buildJCache(cache, KEY);
+
+        ConsumptionScenario scenario = new ConsumptionScenario(4, TimeUnit.SECONDS.toNanos(15), bucket);
+        long consumed = scenario.execute();
+        long duration = scenario.getDurationNanos();
+        System.out.println("Consumed " + consumed + " tokens in the " + duration + " nanos");
+
+        float actualRate = (float) consumed / (float) duration;
+        float permittedRate = 200.0f / (float) TimeUnit.SECONDS.toNanos(10);
+
+        String msg = "Actual rate " + actualRate + " is greater then permitted rate " + permittedRate;
+        assertTrue(msg, actualRate <= permittedRate);
+
+        BucketState snapshot = bucket.createSnapshot();
+        long available = snapshot.getAvailableTokens(bucket.getConfiguration().getBandwidths());
+        long rest = bucket.consumeAsMuchAsPossible();
+        assertTrue(rest >= available);
+    }
+
+    @Test
+    public void bucketShouldBeStoredOnlyAfterFirstModification() {
+        Bucket bucket = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.DAYS, 1)
+                .buildJCache(cache, KEY);
+        assertFalse(cache.containsKey(KEY));
+        assertEquals(10, bucket.createSnapshot().getAvailableTokens(bucket.getConfiguration().getBandwidths()));
+
+        assertTrue(bucket.tryConsume(7));
+        assertTrue(cache.containsKey(KEY));
+        assertFalse(bucket.tryConsume(4));
+        assertEquals(3, bucket.consumeAsMuchAsPossible());
+    }
+
+    @Test
+    public void testBulk() throws Exception {
+        GridBucketTable<String> table = Buckets.withMillisTimePrecision()
+                .withLimitedBandwidth(10, TimeUnit.DAYS, 1)
+                .buildJCacheTable(cache);
+
+        Map<String, Long> tokensByKey = new HashMap<>();
+        tokensByKey.put("first", 7L);
+        tokensByKey.put("second", 3L);
+        Map<String, Boolean> results = table.tryConsume(tokensByKey);
+        assertTrue(results.get("first"));
+        assertTrue(results.get("second"));
+
+        tokensByKey.put("first", 4L);
+        tokensByKey.put("second", 4L);
+        results = table.tryConsume(tokensByKey);
+        assertFalse(results.get("first"));
+        assertTrue(results.get("second"));
+
+        assertTrue(table.tryConsume("third", 10));
+        assertFalse(table.tryConsumeSingleToken("third"));
+    }
+
+}